@@ -0,0 +1,39 @@
+package com.example.springsecuritydemoservice.benchmark;
+
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.security.JwtKeyProvider;
+import com.example.springsecuritydemoservice.security.PrincipalSource;
+import com.example.springsecuritydemoservice.service.impl.JwtServiceImpl;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+final class BenchmarkSupport {
+
+    static final String JWT_SECRET = "f10ddf41a6c7dd941a6474711f159343642d258a0e8aee74908a860ee38aab1f";
+
+    private BenchmarkSupport() {
+    }
+
+    static JwtServiceImpl jwtService(PrincipalSource principalSource) {
+        JwtServiceImpl jwtService = new JwtServiceImpl(new JwtKeyProvider(JWT_SECRET));
+        ReflectionTestUtils.setField(jwtService, "tokenExpiration", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(jwtService, "principalSource", principalSource);
+        return jwtService;
+    }
+
+    static User user() {
+        return User.builder()
+                .id(1L)
+                .firstName("foo")
+                .lastName("bar")
+                .username("foobar@mail.ru")
+                .password("{bcrypt}$2a$10$7EqJtq98hPqEX7fNZaFWoOHiA8jRyJ5.pWv7yJmu0S6xn0K6Ov5Bm")
+                .role(Role.USER)
+                .createdAt(LocalDateTime.of(2024, 4, 30, 14, 34, 54)).build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.springsecuritydemoservice.benchmark;
+
+import com.example.springsecuritydemoservice.config.JwtAuthenticationFilter;
+import com.example.springsecuritydemoservice.metrics.JwtFilterMetrics;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.security.PrincipalSource;
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+import com.example.springsecuritydemoservice.security.VerifiedTokenCache;
+import com.example.springsecuritydemoservice.service.impl.JwtServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The whole filter per request: header parsing, verification (or cache hit), principal
+ * resolution against an in-memory user lookup, the denylist check and the security context update.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final int REVOKED_TOKENS = 1_000;
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    @Param({"DATABASE", "CLAIMS"})
+    private PrincipalSource principalSource;
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private JwtAuthenticationFilter filter;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        JwtServiceImpl jwtService = BenchmarkSupport.jwtService(principalSource);
+        User user = BenchmarkSupport.user();
+        UserDetailsService userDetailsService = username -> user;
+        // the token presented is not revoked, as for nearly every request
+        RevokedTokenIndex accessTokenDenylist = new RevokedTokenIndex(10_000, 0.01);
+        Instant expiresAt = Instant.now().plus(Duration.ofMinutes(10));
+        IntStream.range(0, REVOKED_TOKENS).forEach(i -> accessTokenDenylist.revoke(UUID.randomUUID().toString(), expiresAt));
+        filter = new JwtAuthenticationFilter(jwtService,
+                new VerifiedTokenCache(cacheEnabled, 10_000, Duration.ofMinutes(5), Clock.systemUTC(),
+                        new SimpleMeterRegistry()),
+                accessTokenDenylist,
+                userDetailsService, Jackson2ObjectMapperBuilder.json().build(),
+                new JwtFilterMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(filter, "principalSource", principalSource);
+        authorizationHeader = "Bearer " + jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilterInternal() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/1");
+        request.addHeader(HttpHeaders.AUTHORIZATION, authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, NO_OP_CHAIN);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+}
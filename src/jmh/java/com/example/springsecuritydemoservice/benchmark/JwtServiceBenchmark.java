@@ -0,0 +1,115 @@
+package com.example.springsecuritydemoservice.benchmark;
+
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.security.PrincipalSource;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.service.impl.JwtServiceImpl;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification through JwtServiceImpl, next to the path it replaced,
+ * which decoded jwt.secret and built a parser on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    @Param({"DATABASE", "CLAIMS"})
+    private PrincipalSource principalSource;
+
+    private JwtServiceImpl jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkSupport.jwtService(principalSource);
+        user = BenchmarkSupport.user();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    /**
+     * What generateToken did before JwtKeyProvider: the signing key decoded from the secret per call.
+     */
+    @Benchmark
+    public String generateTokenKeyPerCall() {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + TimeUnit.MINUTES.toMillis(10)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(BenchmarkSupport.JWT_SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    /**
+     * What extractUsername did before JwtKeyProvider: a parser built from the secret per call.
+     */
+    @SuppressWarnings("deprecation")
+    @Benchmark
+    public String extractUsernameParserPerCall() {
+        return Jwts.parser()
+                .setSigningKey(BenchmarkSupport.JWT_SECRET)
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+
+    /**
+     * The token checks of JwtAuthenticationFilter before verifyToken: extractUsername, then an isTokenValid
+     * that parsed the token twice more, for the subject and for the expiration.
+     */
+    @Benchmark
+    public boolean filterPathThreeParses() {
+        String username = jwtService.extractUsername(token);
+        return username.equals(user.getUsername())
+                && jwtService.extractUsername(token).equals(user.getUsername())
+                && jwtService.extractClaim(token, Claims::getExpiration).after(new Date());
+    }
+
+    /**
+     * The token checks of JwtAuthenticationFilter now: one parse, and the rest read from the VerifiedToken.
+     */
+    @Benchmark
+    public boolean filterPathOneParse() {
+        VerifiedToken verifiedToken = jwtService.verifyToken(token);
+        return jwtService.isTokenValid(verifiedToken, user);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.springsecuritydemoservice.benchmark;
+
+import com.example.springsecuritydemoservice.security.JwtKeyProvider;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and verification cost of each supported jwt.algorithm, on a token with the claims this service issues.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtSigningBenchmark {
+
+    @Param({"HS256", "ES256", "RS256"})
+    private SignatureAlgorithm algorithm;
+
+    private JwtKeyProvider jwtKeyProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtKeyProvider = new JwtKeyProvider(BenchmarkSupport.JWT_SECRET, algorithm, "", "", "");
+        token = sign();
+    }
+
+    @Benchmark
+    public String sign() {
+        long now = System.currentTimeMillis();
+        return jwtKeyProvider.sign(Jwts.builder()
+                .setSubject("foobar@mail.ru")
+                .claim("uid", 1L)
+                .claim("role", "USER")
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + TimeUnit.MINUTES.toMillis(10))));
+    }
+
+    @Benchmark
+    public Jws<Claims> verify() {
+        return jwtKeyProvider.getParser().parseClaimsJws(token);
+    }
+}
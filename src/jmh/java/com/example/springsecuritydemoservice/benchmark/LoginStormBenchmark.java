@@ -0,0 +1,200 @@
+package com.example.springsecuritydemoservice.benchmark;
+
+import com.example.springsecuritydemoservice.SpringSecurityDemoServiceApplication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * A login storm against the service on a random port: many threads log in at once while a few keep reading
+ * GET /users/{id} with a token, which shows whether the storm starves the other endpoints. The sampled times
+ * give the p99 of each; loginRejected counts the 503 answers, loginOk the logins that got tokens. After a 503
+ * the client waits for Retry-After as a real one would, and that wait is part of the login's sampled time.
+ * <p>
+ * hashing=bounded runs the default BoundedPasswordEncoder. unbounded gives the hashing pool a worker for every
+ * Tomcat thread and an unlimited queue, which hashes every login at once as the request threads did before the
+ * pool. profiles picks the Spring profiles of the service, and virtualThreads runs its request handling on virtual
+ * threads, which needs a Java 21 build (-Pjava21). quietLogging turns off show-sql and logs warnings only; false
+ * keeps the logging of the profiles, to compare the default profile with prod. The HTTP client runs in the same JVM and shares the CPUs,
+ * and the service needs the database from make docker-compose-up.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 15)
+@Measurement(iterations = 1, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginStormBenchmark {
+
+    private static final String USERNAME_PREFIX = "storm-benchmark-";
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final int USERS = 100;
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    @Param({"bounded", "unbounded"})
+    private String hashing;
+
+    @Param({""})
+    private String profiles;
+
+    @Param({"false"})
+    private boolean virtualThreads;
+
+    @Param({"true"})
+    private boolean quietLogging;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private HttpClient httpClient;
+    private List<HttpRequest> loginRequests;
+    private HttpRequest userRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<String> args = new ArrayList<>(List.of("--server.port=0", "--management.server.port=0",
+                "--spring.profiles.active=" + profiles, "--spring.threads.virtual.enabled=" + virtualThreads));
+        if (quietLogging) {
+            args.addAll(List.of("--spring.jpa.show-sql=false", "--logging.level.root=warn"));
+        }
+        if ("unbounded".equals(hashing)) {
+            args.addAll(List.of("--passwordHashing.threads=200", "--passwordHashing.queueCapacity=100000"));
+        }
+        context = new SpringApplicationBuilder(SpringSecurityDemoServiceApplication.class)
+                .run(args.toArray(String[]::new));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+        deleteBenchmarkUsers();
+        jdbcTemplate.update("""
+                insert into users (first_name, last_name, username, password, role, created_at)
+                select 'foo', 'bar', ? || g, ?, 'USER', now() from generate_series(1, ?) g
+                """, USERNAME_PREFIX, "{bcrypt}" + new BCryptPasswordEncoder(10).encode(PASSWORD), USERS);
+
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1";
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        loginRequests = IntStream.rangeClosed(1, USERS)
+                .mapToObj(i -> HttpRequest.newBuilder(URI.create(baseUrl + "/auth/authenticate"))
+                        .timeout(TIMEOUT)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"username\":\"" + USERNAME_PREFIX + i + "\",\"password\":\"" + PASSWORD + "\"}"))
+                        .build())
+                .toList();
+
+        HttpResponse<String> login = httpClient.send(loginRequests.get(0), HttpResponse.BodyHandlers.ofString());
+        String accessToken = (String) objectMapper.readValue(login.body(), Map.class).get("accessToken");
+        Long userId = jdbcTemplate.queryForObject("select id from users where username = ?", Long.class,
+                USERNAME_PREFIX + 1);
+        userRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + userId))
+                .timeout(TIMEOUT)
+                .header("Authorization", "Bearer " + accessToken)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        deleteBenchmarkUsers();
+        context.close();
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(128)
+    public int login(LoginCounters loginCounters) throws IOException, InterruptedException {
+        HttpRequest request = loginRequests.get(ThreadLocalRandom.current().nextInt(USERS));
+        HttpResponse<Void> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (HttpTimeoutException e) {
+            loginCounters.loginTimedOut++;
+            return 0;
+        }
+        loginCounters.record(response.statusCode());
+        if (response.statusCode() == 503) {
+            // A client that ignores Retry-After keeps the CPUs busy with rejections instead of hashing
+            Thread.sleep(TimeUnit.SECONDS.toMillis(
+                    response.headers().firstValueAsLong("Retry-After").orElse(1)));
+        }
+        return response.statusCode();
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(4)
+    public int getUser() throws IOException, InterruptedException {
+        return httpClient.send(userRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private void deleteBenchmarkUsers() {
+        jdbcTemplate.update("delete from users where username like ?", USERNAME_PREFIX + "%");
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class LoginCounters {
+
+        public long loginOk;
+        public long loginRejected;
+        public long loginFailed;
+        public long loginTimedOut;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            loginOk = 0;
+            loginRejected = 0;
+            loginFailed = 0;
+            loginTimedOut = 0;
+        }
+
+        void record(int status) {
+            if (status == 200) {
+                loginOk++;
+            } else if (status == 503) {
+                loginRejected++;
+            } else {
+                loginFailed++;
+            }
+        }
+    }
+}
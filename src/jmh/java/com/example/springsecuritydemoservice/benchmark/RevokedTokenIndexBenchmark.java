@@ -0,0 +1,76 @@
+package com.example.springsecuritydemoservice.benchmark;
+
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The per-request revocation check of JwtAuthenticationFilter and refresh: a jti that was never revoked
+ * (the common case, answered by the Bloom filter) and a revoked one, against a plain hash set lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RevokedTokenIndexBenchmark {
+
+    private static final int LOOKUP_IDS = 1024;
+
+    @Param({"1000", "100000"})
+    private int revokedTokens;
+
+    private RevokedTokenIndex index;
+    private Map<String, Instant> hashSet;
+    private String[] liveIds;
+    private String[] revokedIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Instant expiresAt = Instant.now().plus(Duration.ofMinutes(30));
+        index = new RevokedTokenIndex(revokedTokens, 0.01);
+        hashSet = new ConcurrentHashMap<>();
+        revokedIds = IntStream.range(0, revokedTokens).mapToObj(i -> UUID.randomUUID().toString()).toArray(String[]::new);
+        for (String id : revokedIds) {
+            index.revoke(id, expiresAt);
+            hashSet.put(id, expiresAt);
+        }
+        liveIds = IntStream.range(0, LOOKUP_IDS).mapToObj(i -> UUID.randomUUID().toString()).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public boolean notRevoked() {
+        return index.isRevoked(liveIds[next++ & (LOOKUP_IDS - 1)]);
+    }
+
+    @Benchmark
+    public boolean revoked() {
+        return index.isRevoked(revokedIds[next++ % revokedIds.length]);
+    }
+
+    @Benchmark
+    public boolean notRevokedHashSetOnly() {
+        return hashSet.containsKey(liveIds[next++ & (LOOKUP_IDS - 1)]);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.springsecuritydemoservice.benchmark;
+
+import com.example.springsecuritydemoservice.dto.UserView;
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationResponse;
+import com.example.springsecuritydemoservice.exception.ErrorResponse;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.security.PrincipalSource;
+import com.example.springsecuritydemoservice.service.impl.JwtServiceImpl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response bodies through the same ObjectMapper setup MVC uses. Run with the gc profiler
+ * (the profile default) to compare allocation per response of the entity and the view,
+ * and of a refresh response through the shared mapper and through a mapper built per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private User user;
+    private UserView userView;
+    private AuthenticationResponse authenticationResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        user = BenchmarkSupport.user();
+        userView = new UserView(user.getId(), user.getFirstName(), user.getLastName(),
+                user.getUsername(), user.getRole(), user.getCreatedAt());
+        JwtServiceImpl jwtService = BenchmarkSupport.jwtService(PrincipalSource.DATABASE);
+        authenticationResponse = AuthenticationResponse.builder()
+                .accessToken(jwtService.generateToken(user))
+                .refreshToken(jwtService.generateRefreshToken(user, UUID.randomUUID().toString(),
+                        UUID.randomUUID().toString())).build();
+    }
+
+    @Benchmark
+    public byte[] errorResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new ErrorResponse("User not found by id: 1"));
+    }
+
+    @Benchmark
+    public byte[] userEntity() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] refreshResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(authenticationResponse);
+    }
+
+    /**
+     * What refresh did before it returned its body to MVC: a new ObjectMapper, with its cold serializer caches, per call.
+     */
+    @Benchmark
+    public byte[] refreshResponseNewObjectMapper() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsBytes(authenticationResponse);
+    }
+
+    @Benchmark
+    public byte[] userView() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userView);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.springsecuritydemoservice.benchmark;
+
+import com.example.springsecuritydemoservice.SpringSecurityDemoServiceApplication;
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Inserts users through UserRepository the way registration (one user per save) and the admin
+ * import (saveAll of a batch) do. Needs the database from make docker-compose-up; password hashing
+ * is left out, see PasswordEncoderBenchmark. Scores are users per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserInsertBenchmark {
+
+    private static final String USERNAME_PREFIX = "insert-benchmark-";
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    private final AtomicLong userCount = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private String password;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringSecurityDemoServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false", "--logging.level.root=warn");
+        userRepository = context.getBean(UserRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        password = BenchmarkSupport.user().getPassword();
+        deleteBenchmarkUsers();
+    }
+
+    @TearDown
+    public void tearDown() {
+        deleteBenchmarkUsers();
+        context.close();
+    }
+
+    @Benchmark
+    public User register() {
+        return userRepository.save(newUser());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IMPORT_BATCH_SIZE)
+    public List<User> importBatch() {
+        return userRepository.saveAll(Stream.generate(this::newUser).limit(IMPORT_BATCH_SIZE).toList());
+    }
+
+    private User newUser() {
+        return User.builder()
+                .firstName("foo")
+                .lastName("bar")
+                .username(USERNAME_PREFIX + userCount.incrementAndGet())
+                .password(password)
+                .role(Role.USER).build();
+    }
+
+    private void deleteBenchmarkUsers() {
+        jdbcTemplate.update("delete from users where username like ?", USERNAME_PREFIX + "%");
+    }
+}
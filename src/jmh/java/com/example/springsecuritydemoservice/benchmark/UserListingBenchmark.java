@@ -0,0 +1,175 @@
+package com.example.springsecuritydemoservice.benchmark;
+
+import com.example.springsecuritydemoservice.SpringSecurityDemoServiceApplication;
+import com.example.springsecuritydemoservice.dto.UserView;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.service.UserService;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Lists every user the way GET /users did before paging, by loading all entities in one transaction,
+ * and the way GET /users?afterId and GET /users/stream do now, writing JSON to a discarding stream.
+ * Seeds the users parameter worth of rows into the database from make docker-compose-up.
+ * peakOldGenMb is the most the old generation held during the measured listing, which is what the rows kept alive
+ * cost; the gc profiler's allocation per operation also counts the garbage each row leaves behind. Aux counters add up
+ * over iterations, so a single measured listing keeps it a per-listing figure.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserListingBenchmark {
+
+    private static final String USERNAME_PREFIX = "listing-benchmark-";
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({"1000000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private UserService userService;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private ObjectMapper objectMapper;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringSecurityDemoServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false", "--logging.level.root=warn");
+        userRepository = context.getBean(UserRepository.class);
+        userService = context.getBean(UserService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        deleteBenchmarkUsers();
+        jdbcTemplate.update("""
+                insert into users (first_name, last_name, username, password, role, created_at)
+                select 'foo', 'bar', ? || g, ?, 'USER', now() from generate_series(1, ?) g
+                """, USERNAME_PREFIX, BenchmarkSupport.user().getPassword(), users);
+        jdbcTemplate.execute("analyze users");
+    }
+
+    @TearDown
+    public void tearDown() {
+        deleteBenchmarkUsers();
+        context.close();
+    }
+
+    /**
+     * The listing before paging: every row a managed entity, with its snapshot, until the response is written.
+     */
+    @Benchmark
+    public void findAllEntities(HeapCounters heapCounters) {
+        transactionTemplate.executeWithoutResult(status -> write(userRepository.findAll()));
+        heapCounters.record();
+    }
+
+    @Benchmark
+    public void keysetPages(HeapCounters heapCounters) {
+        long afterId = 0;
+        List<UserView> page;
+        while (!(page = userService.getAllUsers(afterId, 0, PAGE_SIZE)).isEmpty()) {
+            write(page);
+            afterId = page.get(page.size() - 1).getId();
+        }
+        heapCounters.record();
+    }
+
+    /**
+     * GET /users/stream: the same keyset pages, each read in its own transaction, written one NDJSON line per user.
+     */
+    @Benchmark
+    public void streamPages(HeapCounters heapCounters) {
+        OutputStream outputStream = OutputStream.nullOutputStream();
+        userService.streamAllUsers(user -> {
+            try {
+                writer.writeValue(outputStream, user);
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        heapCounters.record();
+    }
+
+    private void write(Object body) {
+        try {
+            objectMapper.writeValue(OutputStream.nullOutputStream(), body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteBenchmarkUsers() {
+        jdbcTemplate.update("delete from users where username like ?", USERNAME_PREFIX + "%");
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class HeapCounters {
+
+        public long peakOldGenMb;
+
+        @Setup(Level.Invocation)
+        public void resetPeak() {
+            System.gc();
+            oldGenPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+        }
+
+        void record() {
+            peakOldGenMb = oldGenPools().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum() / (1024 * 1024);
+        }
+
+        private static Stream<MemoryPoolMXBean> oldGenPools() {
+            return ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .filter(pool -> pool.getName().contains("Old") || pool.getName().contains("Tenured"));
+        }
+    }
+}
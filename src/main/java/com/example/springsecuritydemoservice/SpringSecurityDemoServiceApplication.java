@@ -4,7 +4,10 @@ import org.springframework.boot.SpringApplication;
 
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class SpringSecurityDemoServiceApplication {
 
 	public static void main(String[] args) {
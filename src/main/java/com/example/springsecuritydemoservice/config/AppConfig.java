@@ -1,9 +1,19 @@
 package com.example.springsecuritydemoservice.config;
 
-import lombok.RequiredArgsConstructor;
+import com.example.springsecuritydemoservice.security.BCryptStrengthCalibrator;
+import com.example.springsecuritydemoservice.security.BoundedPasswordEncoder;
+import com.example.springsecuritydemoservice.security.CaffeineUserCache;
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -11,24 +21,83 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
 
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
-@RequiredArgsConstructor
+@Slf4j
 @Configuration
 public class AppConfig {
 
-    private final UserDetailsService userDetailsService;
+    private static final String BCRYPT_ID = "bcrypt";
+    private static final String PBKDF2_ID = "pbkdf2";
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+
+    @Bean
+    public UserCache userCache(@Value("${userCache.enabled:false}") boolean enabled,
+                               @Value("${userCache.maximumSize:10000}") long maximumSize,
+                               @Value("${userCache.ttl:5m}") Duration ttl,
+                               Clock clock,
+                               MeterRegistry meterRegistry) {
+        if (!enabled) {
+            return new NullUserCache();
+        }
+        return new CaffeineUserCache(maximumSize, ttl, clock, meterRegistry);
+    }
+
+    /**
+     * jti of revoked access tokens, checked by JwtAuthenticationFilter or JwtWebFilter on every request.
+     */
+    @Bean
+    public RevokedTokenIndex accessTokenDenylist(@Value("${accessTokenDenylist.expectedSize:10000}") int expectedSize,
+                                                 @Value("${accessTokenDenylist.falsePositiveRate:0.01}") double falsePositiveRate) {
+        return new RevokedTokenIndex(expectedSize, falsePositiveRate);
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${passwordHashing.algorithm:bcrypt}") String algorithm,
+                                           @Value("${passwordHashing.bcryptStrength:10}") int bcryptStrength,
+                                           @Value("${passwordHashing.calibrate:false}") boolean calibrate,
+                                           @Value("${passwordHashing.targetHashTime:250ms}") Duration targetHashTime,
+                                           @Value("${passwordHashing.threads:0}") int threads,
+                                           @Value("${passwordHashing.queueCapacity:64}") int queueCapacity,
+                                           @Value("${passwordHashing.retryAfter:1s}") Duration retryAfter,
+                                           MeterRegistry meterRegistry) {
+        int strength = bcryptStrength;
+        if (calibrate) {
+            strength = new BCryptStrengthCalibrator().calibrate(targetHashTime);
+            log.info("Calibrated BCrypt strength {} for a target hash time of {}", strength, targetHashTime);
+        }
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT_ID, new BCryptPasswordEncoder(strength));
+        encoders.put(PBKDF2_ID, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Hashes stored before the {id} prefix was introduced are plain BCrypt
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(delegatingPasswordEncoder, poolSize, queueCapacity, retryAfter, meterRegistry);
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
+    @Profile("!reactive")
+    public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+                                                         PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder);
@@ -36,6 +105,7 @@ public class AppConfig {
     }
 
     @Bean
+    @Profile("!reactive")
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
     }
@@ -1,6 +1,11 @@
 package com.example.springsecuritydemoservice.config;
 
 import com.example.springsecuritydemoservice.exception.ErrorResponse;
+import com.example.springsecuritydemoservice.metrics.JwtFilterMetrics;
+import com.example.springsecuritydemoservice.security.PrincipalSource;
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.security.VerifiedTokenCache;
 import com.example.springsecuritydemoservice.service.JwtService;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -14,6 +19,10 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.beans.factory.annotation.Value;
+
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
@@ -25,6 +34,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import org.springframework.stereotype.Component;
 
@@ -34,56 +45,112 @@ import java.io.IOException;
 import java.util.Objects;
 
 @RequiredArgsConstructor
+@Profile("!reactive")
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final String BEARER_PREFIX = "Bearer";
 
+    // the bearer token of a refresh is a refresh token, verified and answered by the endpoint itself
+    private static final RequestMatcher REFRESH_TOKEN_REQUEST = new AntPathRequestMatcher("/api/v1/auth/refresh-token");
+
     private final JwtService jwtService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RevokedTokenIndex accessTokenDenylist;
     private final UserDetailsService userDetailsService;
 
     private final ObjectMapper objectMapper;
+    private final JwtFilterMetrics jwtFilterMetrics;
+
+    @Value("${jwt.principalSource:DATABASE}")
+    private PrincipalSource principalSource;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
 
+        final long startNanos = System.nanoTime();
+        JwtFilterMetrics.Outcome outcome = null;
         try {
 
-            final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-
-            if (Objects.isNull(authHeader) || !authHeader.startsWith(BEARER_PREFIX)) {
-                filterChain.doFilter(request, response);
-                return;
-            }
-
-            final String jwt = authHeader.substring(BEARER_PREFIX.length());
-            final String username = jwtService.extractUsername(jwt);
-
-            if (Objects.nonNull(username) && Objects.isNull(SecurityContextHolder.getContext().getAuthentication())) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
-            }
+            outcome = authenticate(request);
+            jwtFilterMetrics.record(outcome, startNanos);
 
             filterChain.doFilter(request, response);
 
         } catch (ExpiredJwtException e) {
+            recordFailure(outcome, e, startNanos);
             response.setStatus(HttpStatus.FORBIDDEN.value());
             response.getWriter().write(convertObjectToJson(getErrorResponse(e.getMessage())));
         } catch (Exception e) {
+            recordFailure(outcome, e, startNanos);
             response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
             response.getWriter().write(convertObjectToJson(getErrorResponse(e.getMessage())));
         }
 
     }
 
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return REFRESH_TOKEN_REQUEST.matches(request);
+    }
+
+    private JwtFilterMetrics.Outcome authenticate(HttpServletRequest request) {
+        final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (Objects.isNull(authHeader) || !authHeader.startsWith(BEARER_PREFIX)) {
+            return JwtFilterMetrics.Outcome.NO_HEADER;
+        }
+
+        final String jwt = authHeader.substring(BEARER_PREFIX.length());
+        final VerifiedToken verifiedToken = verifiedTokenCache.getOrVerify(jwt, jwtService::verifyToken);
+        if (verifiedToken.isRefreshToken()) {
+            return JwtFilterMetrics.Outcome.INVALID;
+        }
+        // almost always a Bloom filter miss, without a lookup in the denylist itself
+        if (accessTokenDenylist.isRevoked(verifiedToken.getTokenId())) {
+            return JwtFilterMetrics.Outcome.REVOKED;
+        }
+
+        final String username = verifiedToken.getSubject();
+
+        if (Objects.isNull(username)) {
+            return JwtFilterMetrics.Outcome.INVALID;
+        }
+        if (Objects.nonNull(SecurityContextHolder.getContext().getAuthentication())) {
+            return JwtFilterMetrics.Outcome.VALID;
+        }
+
+        UserDetails userDetails = loadUserDetails(verifiedToken);
+        if (!jwtService.isTokenValid(verifiedToken, userDetails)) {
+            return JwtFilterMetrics.Outcome.INVALID;
+        }
+
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities()
+        );
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+        return JwtFilterMetrics.Outcome.VALID;
+    }
+
+    /**
+     * Failures thrown after the outcome was recorded come from the rest of the chain, not from this filter.
+     */
+    private void recordFailure(JwtFilterMetrics.Outcome outcome, Exception exception, long startNanos) {
+        if (Objects.isNull(outcome)) {
+            jwtFilterMetrics.record(JwtFilterMetrics.outcomeOf(exception), startNanos);
+        }
+    }
+
+    private UserDetails loadUserDetails(VerifiedToken verifiedToken) {
+        if (principalSource == PrincipalSource.CLAIMS && verifiedToken.hasPrincipalClaims()) {
+            return verifiedToken.toUser();
+        }
+        return userDetailsService.loadUserByUsername(verifiedToken.getSubject());
+    }
+
     private ErrorResponse getErrorResponse(String message) {
         ErrorResponse errorResponse = new ErrorResponse(message);
         return errorResponse;
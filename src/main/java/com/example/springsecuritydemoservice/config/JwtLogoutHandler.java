@@ -0,0 +1,73 @@
+package com.example.springsecuritydemoservice.config;
+
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.service.AccessTokenRevocationService;
+import com.example.springsecuritydemoservice.service.JwtService;
+import com.example.springsecuritydemoservice.service.RefreshTokenService;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.http.HttpHeaders;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Ends the session of a logout request: the bearer access token stops authenticating before it expires,
+ * and the refresh token family named by its sid claim is revoked, so the session cannot be refreshed either.
+ * The logout filter runs ahead of JwtAuthenticationFilter, so the token is read from the header here.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Profile("!reactive")
+@Component
+public class JwtLogoutHandler implements LogoutHandler {
+
+    private static final String BEARER_PREFIX = "Bearer";
+
+    private final JwtService jwtService;
+    private final AccessTokenRevocationService accessTokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (Objects.isNull(authHeader) || !authHeader.startsWith(BEARER_PREFIX)) {
+            return;
+        }
+
+        try {
+            VerifiedToken token = jwtService.verifyToken(authHeader.substring(BEARER_PREFIX.length()));
+            if (!token.isRefreshToken()) {
+                accessTokenRevocationService.revoke(token);
+            }
+            revokeSession(token);
+        } catch (ExpiredJwtException e) {
+            // the signature was checked before the expiry, so the session it names is still the caller's
+            revokeSession(VerifiedToken.of(e.getClaims()));
+        } catch (JwtException e) {
+            // an invalid token authenticates nothing, there is nothing to revoke
+            log.debug("Logout with an unusable token: {}", e.getMessage());
+        }
+    }
+
+    private void revokeSession(VerifiedToken token) {
+        String familyId = token.isRefreshToken() ? token.getFamilyId() : token.getSessionId();
+        if (Objects.nonNull(familyId)) {
+            refreshTokenService.revokeFamily(familyId);
+        }
+    }
+}
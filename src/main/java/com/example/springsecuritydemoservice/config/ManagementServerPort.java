@@ -0,0 +1,31 @@
+package com.example.springsecuritydemoservice.config;
+
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+
+import org.springframework.context.ApplicationListener;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * The port of the management server, known once it has started. Both servers share one security filter chain,
+ * so the actuator endpoints that are open on the management port are told apart by the local port of the request.
+ * Without a separate management.server.port nothing is on the management port and nothing is opened.
+ */
+@Component
+public class ManagementServerPort implements ApplicationListener<WebServerInitializedEvent> {
+
+    private static final String MANAGEMENT_SERVER_NAMESPACE = "management";
+
+    private volatile int port = -1;
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        if (MANAGEMENT_SERVER_NAMESPACE.equals(event.getApplicationContext().getServerNamespace())) {
+            port = event.getWebServer().getPort();
+        }
+    }
+
+    public boolean matches(int localPort) {
+        return localPort == port;
+    }
+}
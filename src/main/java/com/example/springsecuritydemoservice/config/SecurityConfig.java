@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import org.springframework.security.authentication.AuthenticationProvider;
 
@@ -17,9 +18,12 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
 
+@Profile("!reactive")
 @EnableWebSecurity
 @EnableMethodSecurity(proxyTargetClass = true)
 @RequiredArgsConstructor
@@ -28,9 +32,15 @@ public class SecurityConfig {
 
     private final AuthenticationProvider authenticationProvider;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final JwtLogoutHandler jwtLogoutHandler;
+    private final ManagementServerPort managementServerPort;
+
+    private static final RequestMatcher PROMETHEUS_SCRAPE = new AntPathRequestMatcher("/actuator/prometheus");
 
     private static final String[] WHITE_LIST_URL = {
             "/api/v1/auth/**",
+            "/.well-known/jwks.json",
+            "/actuator/health",
             "/v2/api-docs",
             "/v3/api-docs",
             "/v3/api-docs/**",
@@ -50,6 +60,7 @@ public class SecurityConfig {
                  .authorizeHttpRequests(request ->
                      request
                              .requestMatchers(WHITE_LIST_URL).permitAll()
+                             .requestMatchers(prometheusScrapeOnManagementPort()).permitAll()
                              .anyRequest().authenticated()
                  )
                  .sessionManagement(session -> session.sessionCreationPolicy(STATELESS))
@@ -57,6 +68,7 @@ public class SecurityConfig {
                  .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                  .logout(logout ->
                          logout.logoutUrl("/api/v1/auth/logout")
+                        .addLogoutHandler(jwtLogoutHandler)
                         .addLogoutHandler((request, response, authentication) -> SecurityContextHolder.clearContext())
                         .logoutSuccessHandler((request, response, authentication) -> SecurityContextHolder.clearContext())
                  );
@@ -64,4 +76,11 @@ public class SecurityConfig {
          return http.build();
     }
 
+    /**
+     * The scrape is open on the management port only, which is not published; the public port answers it with 403.
+     */
+    private RequestMatcher prometheusScrapeOnManagementPort() {
+        return request -> managementServerPort.matches(request.getLocalPort()) && PROMETHEUS_SCRAPE.matches(request);
+    }
+
 }
@@ -10,21 +10,23 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.http.HttpHeaders;
+
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.io.IOException;
-
 import static com.example.springsecuritydemoservice.controller.AuthenticationController.AUTH_CONTROLLER_PATH;
 
 @Tag(name = "authentication-controller", description = "Authentication controller")
 @RequiredArgsConstructor
+@Profile("!reactive")
 @RestController
 @RequestMapping("${base-url}" + AUTH_CONTROLLER_PATH)
 public class AuthenticationController {
@@ -53,11 +55,12 @@ public class AuthenticationController {
     @Operation(summary = "Refresh token")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Token has been refreshed"),
-            @ApiResponse(responseCode = "403", description = "Access to the requested resource is forbidden"),
+            @ApiResponse(responseCode = "401", description = "Refresh token is missing, invalid, expired or already used"),
     })
     @PostMapping("/refresh-token")
-    public void refreshToken(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        authenticationService.refreshToken(request, response);
+    public AuthenticationResponse refreshToken(
+            @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        return authenticationService.refreshToken(authHeader);
     }
 
 }
@@ -0,0 +1,42 @@
+package com.example.springsecuritydemoservice.controller;
+
+import com.example.springsecuritydemoservice.security.JwtKeyProvider;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Publishes the token signing public keys, so gateways and other services verify tokens locally.
+ * It has no servlet types and serves both the servlet and the reactive edition.
+ */
+@Tag(name = "jwks-controller", description = "Token signing keys")
+@RequiredArgsConstructor
+@RestController
+public class JwksController {
+
+    public static final String JWKS_PATH = "/.well-known/jwks.json";
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic();
+
+    private final JwtKeyProvider jwtKeyProvider;
+
+    @Operation(summary = "Get the JSON Web Key Set of the token signing keys")
+    @ApiResponse(responseCode = "200")
+    @GetMapping(JWKS_PATH)
+    public ResponseEntity<Map<String, Object>> getJwkSet() {
+        return ResponseEntity.ok()
+                .cacheControl(CACHE_CONTROL)
+                .body(jwtKeyProvider.getJwkSet());
+    }
+}
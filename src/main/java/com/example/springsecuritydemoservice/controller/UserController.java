@@ -1,10 +1,17 @@
 package com.example.springsecuritydemoservice.controller;
 
 import com.example.springsecuritydemoservice.dto.UserDto;
+import com.example.springsecuritydemoservice.dto.UserImportResult;
+import com.example.springsecuritydemoservice.dto.UserView;
 import com.example.springsecuritydemoservice.dto.auth.ChangePasswordRequest;
 import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.service.UserImportService;
 import com.example.springsecuritydemoservice.service.UserService;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -14,23 +21,35 @@ import jakarta.validation.Valid;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.http.ResponseEntity;
+
 import org.springframework.security.access.prepost.PreAuthorize;
 
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import static com.example.springsecuritydemoservice.controller.UserController.USER_CONTROLLER_PATH;
 
 @Tag(name = "user-controller", description = "User crud")
 @RequiredArgsConstructor
+@Profile("!reactive")
 @RestController
 @RequestMapping("${base-url}" + USER_CONTROLLER_PATH)
 public class UserController {
@@ -38,13 +57,21 @@ public class UserController {
     public static final String USER_CONTROLLER_PATH = "/users";
     public static final String ID = "/{id}";
     public static final String CHANGE_PASSWORD = "/{id}/change-password";
+    public static final String STREAM = "/stream";
+    public static final String IMPORT = "/import";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String DEFAULT_PAGE_SIZE = "20";
 
     private static final String HAS_ROLE_ADMIN = "hasRole('ADMIN')";
     private static final String ONLY_OWNER_BY_ID_OR_HAS_ROLE_ADMIN = """
-            @userService.getUserById(#id).getUsername() == authentication.getName() or hasRole('ADMIN')
+            hasRole('ADMIN') or @userSecurity.isOwner(authentication, #id)
         """;
 
     private final UserService userService;
+    private final UserImportService userImportService;
+
+    private final ObjectMapper objectMapper;
 
     @SecurityRequirement(name = "JWT")
     @Operation(summary = "Get user by id")
@@ -54,17 +81,64 @@ public class UserController {
     })
     @PreAuthorize(ONLY_OWNER_BY_ID_OR_HAS_ROLE_ADMIN)
     @GetMapping(ID)
-    public User getById(@PathVariable("id") long id) {
+    public UserView getById(@PathVariable("id") long id) {
         return userService.getUserById(id);
     }
 
     @SecurityRequirement(name = "JWT")
-    @Operation(summary = "Get all users")
+    @Operation(summary = "Get users page ordered by id",
+            description = "Offset paging with page/size, or keyset paging with afterId/size when afterId is set")
     @ApiResponse(responseCode = "200")
     @PreAuthorize(HAS_ROLE_ADMIN)
     @GetMapping
-    public List<User> getAll() {
-        return userService.getAllUsers();
+    public List<UserView> getAll(@RequestParam(value = "page", defaultValue = "0") int page,
+                             @RequestParam(value = "size", defaultValue = DEFAULT_PAGE_SIZE) int size,
+                             @RequestParam(value = "afterId", required = false) Long afterId) {
+        return userService.getAllUsers(afterId, page, size);
+    }
+
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Stream all users as NDJSON")
+    @ApiResponse(responseCode = "200")
+    @PreAuthorize(HAS_ROLE_ADMIN)
+    @GetMapping(value = STREAM, produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = outputStream -> userService.streamAllUsers(user -> {
+            try {
+                writer.writeValue(outputStream, user);
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().body(body);
+    }
+
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Import users from NDJSON",
+            description = "One RegisterRequest object per line; rows that cannot be imported are reported by line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see imported, failed and errors"),
+            @ApiResponse(responseCode = "400", description = "Input cannot be read as a whole")
+    })
+    @PreAuthorize(HAS_ROLE_ADMIN)
+    @PostMapping(value = IMPORT, consumes = APPLICATION_NDJSON_VALUE)
+    public UserImportResult importNdjson(InputStream body) throws IOException {
+        return userImportService.importUsers(body, UserImportService.Format.NDJSON);
+    }
+
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Import users from CSV",
+            description = "Header line with firstName,lastName,username,password, then one user per line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see imported, failed and errors"),
+            @ApiResponse(responseCode = "400", description = "Input cannot be read as a whole")
+    })
+    @PreAuthorize(HAS_ROLE_ADMIN)
+    @PostMapping(value = IMPORT, consumes = TEXT_CSV_VALUE)
+    public UserImportResult importCsv(InputStream body) throws IOException {
+        return userImportService.importUsers(body, UserImportService.Format.CSV);
     }
 
     @SecurityRequirement(name = "JWT")
@@ -0,0 +1,25 @@
+package com.example.springsecuritydemoservice.dto;
+
+import com.example.springsecuritydemoservice.model.Role;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only user projection, selected straight into this shape by the repository
+ * so read endpoints neither hydrate managed entities nor serialize UserDetails getters.
+ */
+@AllArgsConstructor
+@Builder
+@Value
+public class UserView {
+    Long id;
+    String firstName;
+    String lastName;
+    String username;
+    Role role;
+    LocalDateTime createdAt;
+}
@@ -1,11 +1,17 @@
 package com.example.springsecuritydemoservice.exception;
 
+import com.example.springsecuritydemoservice.exception.custom.InvalidImportException;
+import com.example.springsecuritydemoservice.exception.custom.InvalidRefreshTokenException;
+import com.example.springsecuritydemoservice.exception.custom.PasswordHashingOverloadedException;
 import com.example.springsecuritydemoservice.exception.custom.UserNotFoundException;
 
 import com.example.springsecuritydemoservice.exception.custom.WrongPasswordException;
 import io.jsonwebtoken.ExpiredJwtException;
 import org.springframework.dao.DataIntegrityViolationException;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
 import org.springframework.http.converter.HttpMessageNotReadableException;
 
 import org.springframework.security.access.AccessDeniedException;
@@ -22,6 +28,7 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
@@ -53,6 +60,12 @@ public class BaseExceptionHandler {
         return getErrorResponse(exception.getMessage());
     }
 
+    @ResponseStatus(BAD_REQUEST)
+    @ExceptionHandler(InvalidImportException.class)
+    public ErrorResponse invalidImportExceptionHandler(InvalidImportException exception) {
+        return getErrorResponse(exception.getMessage());
+    }
+
     @ResponseStatus(BAD_REQUEST)
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ErrorResponse validationExceptionsHandler(Exception exception) {
@@ -83,12 +96,27 @@ public class BaseExceptionHandler {
         return getErrorResponse(exception.getMessage());
     }
 
+    @ExceptionHandler(PasswordHashingOverloadedException.class)
+    public ResponseEntity<ErrorResponse> passwordHashingOverloadedExceptionHandler(
+            PasswordHashingOverloadedException exception) {
+        long retryAfterSeconds = Math.max(1, exception.getRetryAfter().toSeconds());
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(getErrorResponse(exception.getMessage()));
+    }
+
     @ResponseStatus(UNAUTHORIZED)
     @ExceptionHandler(AuthenticationException.class)
     public ErrorResponse authenticationExceptionHandler(AuthenticationException exception) {
         return getErrorResponse(exception.getMessage());
     }
 
+    @ResponseStatus(UNAUTHORIZED)
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ErrorResponse invalidRefreshTokenExceptionHandler(InvalidRefreshTokenException exception) {
+        return getErrorResponse(exception.getMessage());
+    }
+
 
     private ErrorResponse getErrorResponse(String message) {
         ErrorResponse errorResponse = new ErrorResponse(message);
@@ -0,0 +1,7 @@
+package com.example.springsecuritydemoservice.exception.custom;
+
+public class InvalidImportException extends IllegalArgumentException {
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
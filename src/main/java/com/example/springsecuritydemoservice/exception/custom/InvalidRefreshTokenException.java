@@ -0,0 +1,7 @@
+package com.example.springsecuritydemoservice.exception.custom;
+
+public class InvalidRefreshTokenException extends IllegalStateException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.springsecuritydemoservice.exception.custom;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class PasswordHashingOverloadedException extends IllegalStateException {
+    private final Duration retryAfter;
+
+    public PasswordHashingOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.springsecuritydemoservice.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.slf4j.Marker;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lets through only a sample of the events of one logger, configured in logback-spring.xml.
+ * The decision is made on the level check callers do before building the message
+ * (Hibernate's SQL logger checks isDebugEnabled before formatting), so a skipped
+ * statement costs no formatting. Other loggers and the logging call itself are left to the level.
+ */
+@Getter
+@Setter
+public class SampledLoggerTurboFilter extends TurboFilter {
+
+    private String loggerName;
+    private double sampleRate = 1.0;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || !logger.getName().equals(loggerName) || !isLevelCheck(format, params, t)) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < sampleRate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    @Override
+    public void start() {
+        if (Objects.isNull(loggerName)) {
+            addError("No loggerName set for " + getClass().getSimpleName());
+            return;
+        }
+        super.start();
+    }
+
+    private static boolean isLevelCheck(String format, Object[] params, Throwable t) {
+        return Objects.isNull(format) && Objects.isNull(params) && Objects.isNull(t);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.springsecuritydemoservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings of the AuthenticationService operations, tagged by operation and success or failure.
+ */
+@Component
+public class AuthenticationMetrics {
+
+    public static final String DURATION_METRIC = "auth.service.duration";
+
+    public enum Operation {
+        REGISTER, AUTHENTICATE, REFRESH
+    }
+
+    private final Map<Operation, Timer> successTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Timer> failureTimers = new EnumMap<>(Operation.class);
+
+    public AuthenticationMetrics(MeterRegistry meterRegistry) {
+        for (Operation operation : Operation.values()) {
+            successTimers.put(operation, register(meterRegistry, operation, "success"));
+            failureTimers.put(operation, register(meterRegistry, operation, "failure"));
+        }
+    }
+
+    public void record(Operation operation, boolean success, long startNanos) {
+        Timer timer = success ? successTimers.get(operation) : failureTimers.get(operation);
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer register(MeterRegistry meterRegistry, Operation operation, String outcome) {
+        return Timer.builder(DURATION_METRIC)
+                .description("Time spent in the authentication service")
+                .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
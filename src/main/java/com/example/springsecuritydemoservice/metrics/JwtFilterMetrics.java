@@ -0,0 +1,62 @@
+package com.example.springsecuritydemoservice.metrics;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent in JwtAuthenticationFilter before the rest of the chain, tagged by outcome.
+ * Timers are registered up front so recording is a map lookup and an add.
+ */
+@Component
+public class JwtFilterMetrics {
+
+    public static final String DURATION_METRIC = "jwt.filter.duration";
+
+    public enum Outcome {
+        NO_HEADER, VALID, INVALID, REVOKED, EXPIRED, INVALID_SIGNATURE, MALFORMED, USER_NOT_FOUND, ERROR
+    }
+
+    private final Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+
+    public JwtFilterMetrics(MeterRegistry meterRegistry) {
+        for (Outcome outcome : Outcome.values()) {
+            timers.put(outcome, Timer.builder(DURATION_METRIC)
+                    .description("Time spent authenticating a request from its bearer token")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    public void record(Outcome outcome, long startNanos) {
+        timers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static Outcome outcomeOf(Exception exception) {
+        if (exception instanceof ExpiredJwtException) {
+            return Outcome.EXPIRED;
+        }
+        if (exception instanceof SignatureException) {
+            return Outcome.INVALID_SIGNATURE;
+        }
+        if (exception instanceof JwtException) {
+            return Outcome.MALFORMED;
+        }
+        if (exception instanceof UsernameNotFoundException) {
+            return Outcome.USER_NOT_FOUND;
+        }
+        return Outcome.ERROR;
+    }
+}
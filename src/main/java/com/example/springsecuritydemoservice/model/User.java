@@ -7,6 +7,7 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 
@@ -29,7 +30,7 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
-import static jakarta.persistence.GenerationType.IDENTITY;
+import static jakarta.persistence.GenerationType.SEQUENCE;
 import static jakarta.persistence.TemporalType.TIMESTAMP;
 
 @NoArgsConstructor
@@ -40,8 +41,18 @@ import static jakarta.persistence.TemporalType.TIMESTAMP;
 @Entity
 @Table(name = "users")
 public class User implements UserDetails {
+    public static final String ID_GENERATOR = "users_id_generator";
+
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Ids come from a sequence rather than IDENTITY, so Hibernate can batch inserts.
+     * The pooled-lo optimizer (hibernate.id.optimizer.pooled.preferred) hands out ID_ALLOCATION_SIZE ids
+     * per nextval; the sequence's increment must match, see db/migration/V2__pooled_users_id_sequence.sql.
+     */
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = ID_GENERATOR)
+    @SequenceGenerator(name = ID_GENERATOR, sequenceName = "users_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "First name should not be empty")
@@ -0,0 +1,57 @@
+package com.example.springsecuritydemoservice.repository;
+
+import com.example.springsecuritydemoservice.model.RefreshToken;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import org.springframework.stereotype.Repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    /**
+     * Marks the token used only if it is still live, so of two concurrent refreshes with the same token
+     * exactly one wins; 0 means the token was already used, revoked, expired or is not the user's.
+     */
+    @Modifying
+    @Query("""
+            update RefreshToken t set t.usedAt = :now
+            where t.id = :id and t.userId = :userId
+              and t.usedAt is null and t.revokedAt is null and t.expiresAt > :now
+            """)
+    int markUsed(@Param("id") String id, @Param("userId") Long userId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now where t.familyId = :familyId and t.revokedAt is null")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now where t.userId = :userId and t.revokedAt is null")
+    int revokeByUserId(@Param("userId") Long userId, @Param("now") Instant now);
+
+    List<RefreshToken> findByFamilyId(String familyId);
+
+    List<RefreshToken> findByUserIdAndExpiresAtAfter(Long userId, Instant now);
+
+    /**
+     * Tokens that must be rejected until they expire: used ones (replaced by rotation) and revoked ones.
+     */
+    @Query("""
+            select t from RefreshToken t
+            where t.expiresAt > :now and (t.usedAt is not null or t.revokedAt is not null)
+            """)
+    List<RefreshToken> findRejectedUntilExpiry(@Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,35 @@
+package com.example.springsecuritydemoservice.repository;
+
+import com.example.springsecuritydemoservice.model.RevokedAccessToken;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import org.springframework.stereotype.Repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedAccessTokenRepository extends JpaRepository<RevokedAccessToken, String> {
+
+    /**
+     * A token revoked twice, by a repeated logout or on two instances, keeps its first row.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into revoked_access_tokens (id, expires_at) values (:id, :expiresAt) on conflict do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id, @Param("expiresAt") Instant expiresAt);
+
+    List<RevokedAccessToken> findByExpiresAtAfter(Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedAccessToken t where t.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,14 +1,65 @@
 package com.example.springsecuritydemoservice.repository;
 
+import com.example.springsecuritydemoservice.dto.UserView;
 import com.example.springsecuritydemoservice.model.User;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import org.springframework.stereotype.Repository;
 
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    /**
+     * Transactional, unlike other derived queries, so that the connection goes back to the pool when it returns.
+     * Inside a login, which runs without a transaction, the lookup would otherwise keep it for the whole request,
+     * including the wait for the password hash.
+     */
+    @Transactional(readOnly = true)
     Optional<User> findByUsername(String username);
+
+    @Query("select u.username from User u where u.username in :usernames")
+    Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Replaces the password only if it is still the one the caller read, so a
+     * concurrent password change is never overwritten.
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newPassword where u.username = :username and u.password = :oldPassword")
+    int updatePasswordIfUnchanged(@Param("username") String username,
+                                  @Param("oldPassword") String oldPassword,
+                                  @Param("newPassword") String newPassword);
+
+    String USER_VIEW_SELECT = """
+            select new com.example.springsecuritydemoservice.dto.UserView(
+                u.id, u.firstName, u.lastName, u.username, u.role, u.createdAt)
+            from User u
+            """;
+
+    @Query(USER_VIEW_SELECT + "where u.id = :id")
+    Optional<UserView> findViewById(@Param("id") Long id);
+
+    @Query(USER_VIEW_SELECT + "order by u.id")
+    Slice<UserView> findViews(Pageable pageable);
+
+    /**
+     * Transactional so that each page of a stream borrows a connection only while it is read.
+     */
+    @Transactional(readOnly = true)
+    @Query(USER_VIEW_SELECT + "where u.id > :afterId order by u.id")
+    List<UserView> findViewsAfterId(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,47 @@
+package com.example.springsecuritydemoservice.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Picks the highest BCrypt strength whose hash time stays within a target on the current hardware.
+ * Each strength step doubles the work, so calibration stops once the next step would overshoot.
+ */
+public class BCryptStrengthCalibrator {
+
+    public static final int MIN_STRENGTH = 10;
+    public static final int MAX_STRENGTH = 31;
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample";
+
+    private final IntToLongFunction hashNanos;
+
+    public BCryptStrengthCalibrator() {
+        this(BCryptStrengthCalibrator::measureHashNanos);
+    }
+
+    BCryptStrengthCalibrator(IntToLongFunction hashNanos) {
+        this.hashNanos = hashNanos;
+    }
+
+    public int calibrate(Duration targetHashTime) {
+        long target = targetHashTime.toNanos();
+        int strength = MIN_STRENGTH;
+        long elapsed = hashNanos.applyAsLong(strength);
+        while (strength < MAX_STRENGTH && elapsed * 2 <= target) {
+            strength++;
+            elapsed = hashNanos.applyAsLong(strength);
+        }
+        return strength;
+    }
+
+    private static long measureHashNanos(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode(SAMPLE_PASSWORD);
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.springsecuritydemoservice.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter of strings: mightContain never misses an added value and answers
+ * false for most others without looking at them again. Reads are lock-free; adds are atomic per bit,
+ * so concurrent adds are safe, but a value is only guaranteed visible once its add has returned.
+ */
+final class BloomFilter {
+
+    private static final long MAX_BIT_COUNT = 1L << 32;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final long bitMask;
+    private final int hashCount;
+
+    /**
+     * Sizes the filter for expectedInsertions values at the given false positive rate, with the optimal number
+     * of hash functions. The bit count is rounded up to a power of two, so an index is a mask rather than a division.
+     */
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.min(MAX_BIT_COUNT, Long.highestOneBit(Math.max(optimalBits, Long.SIZE) - 1) << 1);
+        this.bitMask = bitCount - 1;
+        this.bits = new AtomicLongArray((int) (bitCount / Long.SIZE));
+        this.hashCount = Math.max(1, (int) Math.round((double) optimalBits / expectedInsertions * Math.log(2)));
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = bitIndex(hash1 + i * hash2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // another bit of the same word was set concurrently; retry with the new value
+            }
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = bitIndex(hash1 + i * hash2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Kirsch-Mitzenmacher: the k indexes are derived from the two halves of one 64-bit hash.
+     */
+    private long bitIndex(int combinedHash) {
+        return combinedHash & bitMask;
+    }
+
+    /**
+     * Spreads String.hashCode, which the string caches, with the MurmurHash3 finalizer: a lookup of a token id
+     * read once per request costs one pass over its chars, shared with any hash map lookup of the same string.
+     */
+    private static long hash(String value) {
+        long hash = value.hashCode();
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
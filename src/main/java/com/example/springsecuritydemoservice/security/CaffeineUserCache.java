@@ -0,0 +1,63 @@
+package com.example.springsecuritydemoservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local, size and time bounded UserCache used by UserDetailsServiceImpl.
+ * Entries must be evicted by whoever changes or deletes the user. That eviction only reaches this instance:
+ * another instance keeps a changed or deleted user until the ttl expires its entry, so with several instances
+ * the ttl bounds how long an old password, a removed role or a deleted account still authenticates there.
+ * Hits, misses, evictions and size are published as the cache.* meters tagged cache=users.
+ */
+public class CaffeineUserCache implements UserCache {
+
+    static final String CACHE_NAME = "users";
+
+    private final Cache<String, UserDetails> cache;
+
+    public CaffeineUserCache(long maximumSize, Duration ttl, Clock clock, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), user);
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.invalidate(username);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.springsecuritydemoservice.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.math.BigInteger;
+
+import java.nio.charset.StandardCharsets;
+
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+/**
+ * Renders EC and RSA public keys as JSON Web Keys (RFC 7517) and computes
+ * the RFC 7638 thumbprint of a key, which is the default key id.
+ */
+final class JsonWebKeys {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private JsonWebKeys() {
+    }
+
+    static Map<String, Object> toJwk(PublicKey publicKey, SignatureAlgorithm algorithm, String keyId) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", keyId);
+        jwk.put("use", "sig");
+        jwk.put("alg", algorithm.getValue());
+        jwk.putAll(members(publicKey));
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    /**
+     * Also used for HMAC keys, as "oct" keys: JJWT requires 256 bits for HS256, too many to guess from the digest.
+     */
+    static String thumbprint(Key key) {
+        // the required members in lexicographic order, without whitespace; all values are base64url or plain names
+        StringBuilder json = new StringBuilder("{");
+        members(key).entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(member -> json.append(json.length() > 1 ? "," : "")
+                        .append('"').append(member.getKey()).append("\":\"").append(member.getValue()).append('"'));
+        json.append('}');
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.toString().getBytes(StandardCharsets.UTF_8));
+            return BASE64_URL.encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Map<String, String> members(Key key) {
+        Map<String, String> members = new LinkedHashMap<>();
+        if (key instanceof ECPublicKey ecKey) {
+            int fieldSize = ecKey.getParams().getCurve().getField().getFieldSize();
+            int coordinateLength = (fieldSize + 7) / 8;
+            members.put("kty", "EC");
+            members.put("crv", "P-" + fieldSize);
+            members.put("x", encode(ecKey.getW().getAffineX(), coordinateLength));
+            members.put("y", encode(ecKey.getW().getAffineY(), coordinateLength));
+        } else if (key instanceof RSAPublicKey rsaKey) {
+            members.put("kty", "RSA");
+            members.put("n", encode(rsaKey.getModulus(), 0));
+            members.put("e", encode(rsaKey.getPublicExponent(), 0));
+        } else if (key instanceof SecretKey secretKey) {
+            members.put("kty", "oct");
+            members.put("k", BASE64_URL.encodeToString(secretKey.getEncoded()));
+        } else {
+            throw new IllegalArgumentException("Unsupported key type: " + key.getAlgorithm());
+        }
+        return members;
+    }
+
+    /**
+     * Big-endian unsigned bytes, left-padded to length (EC coordinates have a fixed size) or minimal when length is 0.
+     */
+    private static String encode(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length < length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return BASE64_URL.encodeToString(bytes);
+    }
+}
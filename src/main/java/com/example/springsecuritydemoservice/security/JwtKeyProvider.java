@@ -0,0 +1,287 @@
+package com.example.springsecuritydemoservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.crypto.SecretKey;
+
+/**
+ * Owns the ring of signing keys, indexed by key id, and the JwtParser that verifies with it.
+ * The ring is read from jwt.keyRing.keys, so every instance and every restart sees the same keys:
+ * the CURRENT key signs and carries its kid in the token header, the NEXT and PREVIOUS keys only verify.
+ * Rotation is a configuration rollout, see {@link JwtKeyRingProperties}. Without a configured ring the single
+ * key of jwt.secret or jwt.privateKey signs and verifies.
+ * <p>
+ * The ring and its parser are one immutable snapshot built at startup,
+ * so the validation path is a map lookup by kid, without locks.
+ * <p>
+ * HS256 signs with a shared secret. With an EC or RSA algorithm (ES256, RS256, ...) tokens are signed
+ * with a private key and the public keys are published as a JWK set, so that other services can verify them
+ * without the secret.
+ */
+@Slf4j
+@Component
+public class JwtKeyProvider {
+
+    private final SignatureAlgorithm algorithm;
+    private final KeyRing keyRing;
+
+    public JwtKeyProvider(String jwtSecret) {
+        this(jwtSecret, SignatureAlgorithm.HS256, "", "", "");
+    }
+
+    public JwtKeyProvider(String jwtSecret, SignatureAlgorithm algorithm,
+                          String keyId, String privateKey, String publicKey) {
+        this(jwtSecret, algorithm, keyId, privateKey, publicKey, new JwtKeyRingProperties(List.of()));
+    }
+
+    @Autowired
+    public JwtKeyProvider(@Value("${jwt.secret}") String jwtSecret,
+                          @Value("${jwt.algorithm:HS256}") SignatureAlgorithm algorithm,
+                          @Value("${jwt.keyId:}") String keyId,
+                          @Value("${jwt.privateKey:}") String privateKey,
+                          @Value("${jwt.publicKey:}") String publicKey,
+                          JwtKeyRingProperties keyRingProperties) {
+        if (algorithm != SignatureAlgorithm.HS256 && !algorithm.isEllipticCurve() && !algorithm.isRsa()) {
+            throw new IllegalArgumentException("Unsupported jwt.algorithm " + algorithm
+                    + ": use HS256 or an EC or RSA algorithm such as ES256");
+        }
+        this.algorithm = algorithm;
+
+        if (keyRingProperties.keys().isEmpty()) {
+            SigningKey configuredKey = algorithm == SignatureAlgorithm.HS256
+                    ? SigningKey.hmac(hmacKey(jwtSecret), keyId)
+                    : SigningKey.asymmetric(algorithm, keyPair(algorithm, privateKey, publicKey), keyId);
+            this.keyRing = KeyRing.of(configuredKey, List.of(), configuredKey.kid());
+        } else {
+            this.keyRing = configuredRing(algorithm, keyRingProperties.keys());
+            log.info("Signing tokens with key {}, {} more keys verify", keyRing.current().kid(),
+                    keyRingProperties.keys().size() - 1);
+        }
+    }
+
+    public Key getSigningKey() {
+        return keyRing.current().signingKey();
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getKeyId() {
+        return keyRing.current().kid();
+    }
+
+    public JwtParser getParser() {
+        return keyRing.parser();
+    }
+
+    /**
+     * The current, next and previous public keys as a JWK set; empty for HS256, whose secrets are never published.
+     */
+    public Map<String, Object> getJwkSet() {
+        return keyRing.jwkSet();
+    }
+
+    /**
+     * Signs the token with the current key, adding its key id to the header.
+     */
+    public String sign(JwtBuilder builder) {
+        SigningKey current = keyRing.current();
+        return builder
+                .setHeaderParam(JwsHeader.KEY_ID, current.kid())
+                .signWith(current.signingKey(), current.algorithm())
+                .compact();
+    }
+
+    /**
+     * Kid-less tokens predate the key ring and were signed with jwt.secret or jwt.privateKey,
+     * which a configured ring does not hold, so they are rejected.
+     */
+    private static KeyRing configuredRing(SignatureAlgorithm algorithm, List<JwtKeyRingProperties.RingKey> ringKeys) {
+        SigningKey current = null;
+        List<SigningKey> verifyingKeys = new ArrayList<>();
+        Set<String> kids = new HashSet<>();
+        for (int i = 0; i < ringKeys.size(); i++) {
+            JwtKeyRingProperties.RingKey ringKey = ringKeys.get(i);
+            String property = "jwt.keyRing.keys[" + i + "]";
+            if (!StringUtils.hasText(ringKey.kid()) || Objects.isNull(ringKey.status())) {
+                throw new IllegalArgumentException(property + " needs a kid and a status");
+            }
+            if (!kids.add(ringKey.kid())) {
+                throw new IllegalArgumentException(property + " repeats the kid " + ringKey.kid());
+            }
+            boolean signs = ringKey.status() == JwtKeyRingProperties.Status.CURRENT;
+            SigningKey key = ringKey(algorithm, ringKey, signs, property);
+            if (!signs) {
+                verifyingKeys.add(key);
+            } else if (Objects.isNull(current)) {
+                current = key;
+            } else {
+                throw new IllegalArgumentException("jwt.keyRing.keys has more than one CURRENT key");
+            }
+        }
+        if (Objects.isNull(current)) {
+            throw new IllegalArgumentException("jwt.keyRing.keys has no CURRENT key");
+        }
+        return KeyRing.of(current, verifyingKeys, null);
+    }
+
+    private static SigningKey ringKey(SignatureAlgorithm algorithm, JwtKeyRingProperties.RingKey ringKey,
+                                      boolean signs, String property) {
+        if (algorithm == SignatureAlgorithm.HS256) {
+            if (!StringUtils.hasText(ringKey.secret())) {
+                throw new IllegalArgumentException(property + ".secret must be set for HS256");
+            }
+            return SigningKey.hmac(hmacKey(ringKey.secret()), ringKey.kid());
+        }
+        if (signs || StringUtils.hasText(ringKey.privateKey())) {
+            if (!StringUtils.hasText(ringKey.privateKey()) || !StringUtils.hasText(ringKey.publicKey())) {
+                throw new IllegalArgumentException(property + ".privateKey and .publicKey must be set");
+            }
+            return SigningKey.asymmetric(algorithm, keyPair(algorithm, ringKey.privateKey(), ringKey.publicKey()),
+                    ringKey.kid());
+        }
+        if (!StringUtils.hasText(ringKey.publicKey())) {
+            throw new IllegalArgumentException(property + ".publicKey must be set");
+        }
+        return SigningKey.verifying(algorithm, publicKey(algorithm, ringKey.publicKey()), ringKey.kid());
+    }
+
+    private static SecretKey hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+
+    private static KeyPair keyPair(SignatureAlgorithm algorithm, String privateKey, String publicKey) {
+        if (!StringUtils.hasText(privateKey) && !StringUtils.hasText(publicKey)) {
+            log.warn("jwt.privateKey is not set, signing {} tokens with a key pair generated at startup: "
+                    + "tokens are not accepted after a restart or by other instances", algorithm);
+            return Keys.keyPairFor(algorithm);
+        }
+        if (!StringUtils.hasText(privateKey) || !StringUtils.hasText(publicKey)) {
+            throw new IllegalArgumentException("jwt.privateKey and jwt.publicKey must be set together");
+        }
+
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm.isRsa() ? "RSA" : "EC");
+            return new KeyPair(
+                    keyFactory.generatePublic(new X509EncodedKeySpec(decodePem(publicKey))),
+                    keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decodePem(privateKey))));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("jwt.privateKey or jwt.publicKey is not a valid "
+                    + algorithm.getFamilyName() + " key", e);
+        }
+    }
+
+    private static PublicKey publicKey(SignatureAlgorithm algorithm, String publicKey) {
+        try {
+            return KeyFactory.getInstance(algorithm.isRsa() ? "RSA" : "EC")
+                    .generatePublic(new X509EncodedKeySpec(decodePem(publicKey)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("jwt.publicKey is not a valid " + algorithm.getFamilyName() + " key", e);
+        }
+    }
+
+    /**
+     * Accepts base64 DER as well as PEM, so a key file can be passed as is.
+     */
+    private static byte[] decodePem(String key) {
+        return Decoders.BASE64.decode(key.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", ""));
+    }
+
+    private record SigningKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey,
+                              Map<String, Object> jwk) {
+        static SigningKey hmac(SecretKey secretKey, String keyId) {
+            String kid = StringUtils.hasText(keyId) ? keyId : JsonWebKeys.thumbprint(secretKey);
+            return new SigningKey(kid, SignatureAlgorithm.HS256, secretKey, secretKey, null);
+        }
+
+        static SigningKey asymmetric(SignatureAlgorithm algorithm, KeyPair keyPair, String keyId) {
+            String kid = StringUtils.hasText(keyId) ? keyId : JsonWebKeys.thumbprint(keyPair.getPublic());
+            return new SigningKey(kid, algorithm, keyPair.getPrivate(), keyPair.getPublic(),
+                    JsonWebKeys.toJwk(keyPair.getPublic(), algorithm, kid));
+        }
+
+        static SigningKey verifying(SignatureAlgorithm algorithm, PublicKey publicKey, String kid) {
+            return new SigningKey(kid, algorithm, null, publicKey, JsonWebKeys.toJwk(publicKey, algorithm, kid));
+        }
+    }
+
+    /**
+     * legacyKid verifies tokens issued without a kid header, before the key ring, with the configured key;
+     * null rejects them.
+     */
+    private record KeyRing(SigningKey current, JwtParser parser, Map<String, Object> jwkSet) {
+        static KeyRing of(SigningKey current, List<SigningKey> verifyingKeys, String legacyKid) {
+            List<SigningKey> keys = Stream.concat(Stream.of(current), verifyingKeys.stream()).toList();
+            Map<String, SigningKey> verificationKeys = keys.stream()
+                    .collect(Collectors.toUnmodifiableMap(SigningKey::kid, Function.identity()));
+            JwtParser parser = Jwts.parserBuilder()
+                    .setSigningKeyResolver(new KeyIdResolver(verificationKeys, legacyKid))
+                    .build();
+            List<Map<String, Object>> jwks = keys.stream()
+                    .map(SigningKey::jwk)
+                    .filter(Objects::nonNull)
+                    .toList();
+            return new KeyRing(current, parser, Map.of("keys", jwks));
+        }
+    }
+
+    private static final class KeyIdResolver extends SigningKeyResolverAdapter {
+
+        private final Map<String, SigningKey> keys;
+        private final String legacyKid;
+
+        KeyIdResolver(Map<String, SigningKey> keys, String legacyKid) {
+            this.keys = keys;
+            this.legacyKid = legacyKid;
+        }
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String kid = Objects.requireNonNullElse(header.getKeyId(), Objects.toString(legacyKid, ""));
+            SigningKey key = keys.get(kid);
+            if (Objects.isNull(key)) {
+                throw new SignatureException("Unknown signing key id: " + header.getKeyId());
+            }
+            if (!key.algorithm().getValue().equals(header.getAlgorithm())) {
+                throw new SignatureException("Token algorithm " + header.getAlgorithm()
+                        + " does not match signing key " + key.kid());
+            }
+            return key.verificationKey();
+        }
+    }
+}
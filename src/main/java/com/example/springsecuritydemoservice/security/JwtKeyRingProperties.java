@@ -0,0 +1,41 @@
+package com.example.springsecuritydemoservice.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The signing keys listed under jwt.keyRing.keys. Every instance reads the same list, so they all sign with
+ * the CURRENT key and verify the NEXT and PREVIOUS keys, and a restart keeps every key.
+ * An empty list signs with the single key of jwt.secret or jwt.privateKey.
+ */
+@ConfigurationProperties("jwt.key-ring")
+public record JwtKeyRingProperties(List<RingKey> keys) {
+
+    public JwtKeyRingProperties {
+        keys = List.copyOf(Objects.requireNonNullElse(keys, List.of()));
+    }
+
+    public enum Status {
+        /**
+         * Signs new tokens; exactly one key has this status.
+         */
+        CURRENT,
+        /**
+         * Verifies only, rolled out before it becomes CURRENT so that every instance accepts its tokens first.
+         */
+        NEXT,
+        /**
+         * Verifies only, kept until the tokens it signed have expired.
+         */
+        PREVIOUS
+    }
+
+    /**
+     * secret is the base64 HS256 key; privateKey and publicKey are the base64 (or PEM) EC or RSA keys.
+     * A NEXT or PREVIOUS key only verifies, so it needs no private key.
+     */
+    public record RingKey(String kid, Status status, String secret, String privateKey, String publicKey) {
+    }
+}
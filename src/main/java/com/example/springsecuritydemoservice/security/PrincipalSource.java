@@ -0,0 +1,9 @@
+package com.example.springsecuritydemoservice.security;
+
+/**
+ * Where JwtAuthenticationFilter takes the authenticated principal from.
+ * DATABASE loads the user on every request, CLAIMS rebuilds it from the token alone.
+ */
+public enum PrincipalSource {
+    DATABASE, CLAIMS
+}
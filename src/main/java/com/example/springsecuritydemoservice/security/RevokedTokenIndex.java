@@ -0,0 +1,69 @@
+package com.example.springsecuritydemoservice.security;
+
+import java.time.Instant;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of revoked token ids (jti), each kept until the token it names expires.
+ * Lookups are O(1) and lock-free: the Bloom filter rejects almost every id that was never revoked,
+ * and only its hits are confirmed in the hash set, so a false positive costs one map lookup, never a rejection.
+ * <p>
+ * Writers are serialized, so prune can rebuild the filter from the set without losing a concurrent revoke.
+ * The filter is rebuilt at max(expectedSize, twice the live entries), which keeps the false positive rate
+ * near the configured one when more tokens are revoked than expected.
+ */
+public class RevokedTokenIndex {
+
+    private final int expectedSize;
+    private final double falsePositiveRate;
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    public RevokedTokenIndex(int expectedSize, double falsePositiveRate) {
+        this.expectedSize = expectedSize;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedSize, falsePositiveRate);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return Objects.nonNull(tokenId) && filter.mightContain(tokenId) && revoked.containsKey(tokenId);
+    }
+
+    public synchronized void revoke(String tokenId, Instant expiresAt) {
+        revoked.put(tokenId, expiresAt);
+        filter.add(tokenId);
+    }
+
+    /**
+     * Adds the ids loaded from the store of record. Nothing is dropped here, so an id revoked after the load
+     * is never lost; expired ids go with the next prune.
+     */
+    public synchronized void revokeAll(Map<String, Instant> tokens) {
+        revoked.putAll(tokens);
+        BloomFilter current = filter;
+        tokens.keySet().forEach(current::add);
+    }
+
+    /**
+     * Drops the ids of tokens expired at now, which are rejected by their exp claim anyway,
+     * and rebuilds the filter, since a Bloom filter cannot forget.
+     */
+    public synchronized void prune(Instant now) {
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        rebuildFilter();
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedSize, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.springsecuritydemoservice.security;
+
+import com.example.springsecuritydemoservice.model.User;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Method security helpers for user endpoints.
+ * Ownership is decided from the authenticated principal only, without loading the target user.
+ */
+@Component("userSecurity")
+public class UserSecurity {
+
+    public boolean isOwner(Authentication authentication, Long id) {
+        return Objects.nonNull(authentication)
+                && authentication.getPrincipal() instanceof User user
+                && Objects.nonNull(user.getId())
+                && user.getId().equals(id);
+    }
+
+}
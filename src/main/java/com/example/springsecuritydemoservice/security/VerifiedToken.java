@@ -0,0 +1,100 @@
+package com.example.springsecuritydemoservice.security;
+
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+
+import io.jsonwebtoken.Claims;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable result of a single parse and signature check of a JWT.
+ * Everything the request path needs is read from here instead of re-parsing the token.
+ */
+@Value
+public class VerifiedToken {
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String FAMILY_ID_CLAIM = "fid";
+    public static final String SESSION_ID_CLAIM = "sid";
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+
+    String subject;
+    Instant issuedAt;
+    Instant expiration;
+    Map<String, Object> claims;
+
+    public static VerifiedToken of(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()),
+                Collections.unmodifiableMap(new LinkedHashMap<>(claims)));
+    }
+
+    public boolean isExpired() {
+        return isExpiredAt(Instant.now());
+    }
+
+    public boolean isExpiredAt(Instant instant) {
+        return Objects.nonNull(expiration) && expiration.isBefore(instant);
+    }
+
+    /**
+     * The jti claim; refresh tokens are tracked by it and access tokens are revoked by it.
+     */
+    public String getTokenId() {
+        return (String) claims.get(Claims.ID);
+    }
+
+    /**
+     * The refresh token family: every token rotated from the same login carries the same id.
+     */
+    public String getFamilyId() {
+        return (String) claims.get(FAMILY_ID_CLAIM);
+    }
+
+    /**
+     * The refresh token family an access token was issued with, so a logout can end the whole session.
+     */
+    public String getSessionId() {
+        return (String) claims.get(SESSION_ID_CLAIM);
+    }
+
+    /**
+     * Refresh tokens are signed by the same keys as access tokens, so this claim is what keeps them
+     * from being accepted as bearer credentials. Tokens of a family issued before the typ claim have a fid.
+     */
+    public boolean isRefreshToken() {
+        return REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM)) || claims.containsKey(FAMILY_ID_CLAIM);
+    }
+
+    public boolean hasPrincipalClaims() {
+        return claims.get(USER_ID_CLAIM) instanceof Number && claims.get(ROLE_CLAIM) instanceof String;
+    }
+
+    /**
+     * Rebuilds the user from the uid and role claims without touching the database.
+     * The result carries no password or profile fields and must only be used as a request principal.
+     */
+    public User toUser() {
+        return User.builder()
+                .id(((Number) claims.get(USER_ID_CLAIM)).longValue())
+                .username(subject)
+                .role(Role.valueOf((String) claims.get(ROLE_CLAIM)))
+                .build();
+    }
+
+    private static Instant toInstant(Date date) {
+        return Objects.isNull(date) ? null : date.toInstant();
+    }
+}
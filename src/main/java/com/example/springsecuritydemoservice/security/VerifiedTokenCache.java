@@ -0,0 +1,127 @@
+package com.example.springsecuritydemoservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Opt-in cache of tokens that already passed signature verification.
+ * Entries are keyed by the SHA-256 of the token, so raw bearer tokens are never kept in memory,
+ * and expire after the configured ttl or at the token's own exp claim, whichever comes first.
+ * Entries do not record the kid they were verified with. JwtKeyProvider reads its key ring once at startup,
+ * so removing a key means a restart, which empties this cache too; a key ring that changes at runtime would
+ * have to invalidate the entries of a removed kid.
+ * When enabled, hits, misses, evictions and size are published as the cache.* meters tagged cache=jwt.verified.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    static final String CACHE_NAME = "jwt.verified";
+
+    private final boolean enabled;
+    private final Clock clock;
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.enabled:false}") boolean enabled,
+                              @Value("${jwt.cache.maximumSize:10000}") long maximumSize,
+                              @Value("${jwt.cache.ttl:5m}") Duration ttl,
+                              Clock clock,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry(ttl, clock))
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .recordStats()
+                .build();
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        }
+    }
+
+    public VerifiedToken getOrVerify(String token, Function<String, VerifiedToken> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+
+        String key = hash(token);
+        VerifiedToken verifiedToken = cache.get(key, k -> verifier.apply(token));
+        if (verifiedToken.isExpiredAt(clock.instant())) {
+            cache.invalidate(key);
+            return verifier.apply(token);
+        }
+        return verifiedToken;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record TokenExpiry(Duration ttl, Clock clock) implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            Duration lifetime = ttl;
+            if (Objects.nonNull(value.getExpiration())) {
+                Duration untilExpiration = Duration.between(Instant.now(clock), value.getExpiration());
+                if (untilExpiration.compareTo(lifetime) < 0) {
+                    lifetime = untilExpiration;
+                }
+            }
+            return Math.max(lifetime.toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
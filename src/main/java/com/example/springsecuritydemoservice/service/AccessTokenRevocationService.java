@@ -0,0 +1,7 @@
+package com.example.springsecuritydemoservice.service;
+
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+
+public interface AccessTokenRevocationService {
+    void revoke(VerifiedToken accessToken);
+}
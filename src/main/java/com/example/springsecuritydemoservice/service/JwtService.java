@@ -1,5 +1,7 @@
 package com.example.springsecuritydemoservice.service;
 
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+
 import io.jsonwebtoken.Claims;
 
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,6 +16,10 @@ public interface JwtService {
     String generateToken(UserDetails userDetails);
     String generateToken(UserDetails userDetails, Map<String, Object> extraClaims);
     String generateRefreshToken(UserDetails userDetails);
+    String generateRefreshToken(UserDetails userDetails, String tokenId, String familyId);
+
+    VerifiedToken verifyToken(String token);
 
     boolean isTokenValid(String token, UserDetails userDetails);
+    boolean isTokenValid(VerifiedToken token, UserDetails userDetails);
 }
@@ -0,0 +1,7 @@
+package com.example.springsecuritydemoservice.service;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+public interface PasswordUpgradeService {
+    void upgradeIfNeeded(UserDetails user, String rawPassword);
+}
@@ -0,0 +1,14 @@
+package com.example.springsecuritydemoservice.service;
+
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+
+public interface RefreshTokenService {
+    String issue(User user, String familyId);
+
+    String rotate(VerifiedToken refreshToken, User user);
+
+    void revokeFamily(String familyId);
+
+    void revokeAll(Long userId);
+}
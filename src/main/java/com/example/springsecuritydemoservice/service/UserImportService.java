@@ -0,0 +1,12 @@
+package com.example.springsecuritydemoservice.service;
+
+import com.example.springsecuritydemoservice.dto.UserImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface UserImportService {
+    enum Format { NDJSON, CSV }
+
+    UserImportResult importUsers(InputStream inputStream, Format format) throws IOException;
+}
@@ -1,14 +1,17 @@
 package com.example.springsecuritydemoservice.service;
 
 import com.example.springsecuritydemoservice.dto.UserDto;
+import com.example.springsecuritydemoservice.dto.UserView;
 import com.example.springsecuritydemoservice.dto.auth.ChangePasswordRequest;
 import com.example.springsecuritydemoservice.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
-    List<User> getAllUsers();
-    User getUserById(Long id);
+    List<UserView> getAllUsers(Long afterId, int page, int size);
+    void streamAllUsers(Consumer<UserView> consumer);
+    UserView getUserById(Long id);
 
     User updateUser(Long id, UserDto userDto);
     void deleteUser(Long id);
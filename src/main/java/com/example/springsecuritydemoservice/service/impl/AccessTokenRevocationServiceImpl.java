@@ -0,0 +1,104 @@
+package com.example.springsecuritydemoservice.service.impl;
+
+import com.example.springsecuritydemoservice.model.RevokedAccessToken;
+
+import com.example.springsecuritydemoservice.repository.RevokedAccessTokenRepository;
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.service.AccessTokenRevocationService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Revokes access tokens before their exp by their jti. The revoked_access_tokens table is shared by all
+ * instances and survives restarts; JwtAuthenticationFilter and JwtWebFilter check the in-memory denylist,
+ * which is reloaded from the table every accessTokenDenylist.syncInterval. Entries go away once the token has expired,
+ * from the table and the denylist alike, so both stay as small as the tokens revoked within one token lifetime.
+ */
+@Slf4j
+@Service
+public class AccessTokenRevocationServiceImpl implements AccessTokenRevocationService, DisposableBean {
+
+    private final RevokedAccessTokenRepository revokedAccessTokenRepository;
+    private final RevokedTokenIndex accessTokenDenylist;
+    private final Clock clock;
+
+    private ScheduledExecutorService syncExecutor;
+
+    @Autowired
+    public AccessTokenRevocationServiceImpl(RevokedAccessTokenRepository revokedAccessTokenRepository,
+                                            RevokedTokenIndex accessTokenDenylist,
+                                            Clock clock,
+                                            @Value("${accessTokenDenylist.syncInterval:30s}") Duration syncInterval) {
+        this(revokedAccessTokenRepository, accessTokenDenylist, clock);
+
+        long intervalMillis = syncInterval.toMillis();
+        syncExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("access-token-denylist-"));
+        syncExecutor.scheduleWithFixedDelay(this::sync, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public AccessTokenRevocationServiceImpl(RevokedAccessTokenRepository revokedAccessTokenRepository,
+                                            RevokedTokenIndex accessTokenDenylist,
+                                            Clock clock) {
+        this.revokedAccessTokenRepository = revokedAccessTokenRepository;
+        this.accessTokenDenylist = accessTokenDenylist;
+        this.clock = clock;
+        reloadDenylist();
+    }
+
+    /**
+     * Tokens without a jti, issued before the denylist, and expired tokens are skipped: there is nothing to revoke.
+     */
+    @Override
+    public void revoke(VerifiedToken accessToken) {
+        String tokenId = accessToken.getTokenId();
+        if (Objects.isNull(tokenId) || Objects.isNull(accessToken.getExpiration())
+                || accessToken.isExpiredAt(clock.instant())) {
+            return;
+        }
+        revokedAccessTokenRepository.insertIfAbsent(tokenId, accessToken.getExpiration());
+        accessTokenDenylist.revoke(tokenId, accessToken.getExpiration());
+    }
+
+    @Override
+    public void destroy() {
+        if (Objects.nonNull(syncExecutor)) {
+            syncExecutor.shutdownNow();
+        }
+    }
+
+    void sync() {
+        try {
+            revokedAccessTokenRepository.deleteExpired(clock.instant());
+            reloadDenylist();
+        } catch (RuntimeException e) {
+            // an exception would cancel the scheduled task; try again at the next interval
+            log.warn("Access token denylist sync failed: {}", e.getMessage());
+        }
+    }
+
+    private void reloadDenylist() {
+        Instant now = clock.instant();
+        accessTokenDenylist.revokeAll(revokedAccessTokenRepository.findByExpiresAtAfter(now).stream()
+                .collect(Collectors.toMap(RevokedAccessToken::getId, RevokedAccessToken::getExpiresAt)));
+        accessTokenDenylist.prune(now);
+    }
+}
@@ -4,35 +4,43 @@ import com.example.springsecuritydemoservice.dto.auth.AuthenticationRequest;
 import com.example.springsecuritydemoservice.dto.auth.AuthenticationResponse;
 import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
 
+import com.example.springsecuritydemoservice.exception.custom.InvalidRefreshTokenException;
+
+import com.example.springsecuritydemoservice.metrics.AuthenticationMetrics;
+import com.example.springsecuritydemoservice.metrics.AuthenticationMetrics.Operation;
+
 import com.example.springsecuritydemoservice.model.Role;
 import com.example.springsecuritydemoservice.model.User;
 
 import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
 import com.example.springsecuritydemoservice.service.AuthenticationService;
 import com.example.springsecuritydemoservice.service.JwtService;
+import com.example.springsecuritydemoservice.service.PasswordUpgradeService;
+import com.example.springsecuritydemoservice.service.RefreshTokenService;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
+import io.jsonwebtoken.JwtException;
 
 import lombok.RequiredArgsConstructor;
 
-import org.springframework.http.HttpHeaders;
+import org.springframework.context.annotation.Profile;
 
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.IOException;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 
 @Transactional
 @RequiredArgsConstructor
+@Profile("!reactive")
 @Service
 public class AuthenticationServiceImpl implements AuthenticationService {
 
@@ -42,66 +50,122 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
 
     private final AuthenticationManager authenticationManager;
+    private final PasswordUpgradeService passwordUpgradeService;
 
+    private final AuthenticationMetrics authenticationMetrics;
+
+    /**
+     * Runs outside a transaction, like authenticate: the password is hashed before the save takes a connection,
+     * and the save and the refresh token each commit in their own transaction.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public AuthenticationResponse register(RegisterRequest request) {
-        User user = User.builder()
-                .firstName(request.getFirstName())
-                .lastName(request.getLastName())
-                .username(request.getUsername())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .role(Role.USER).build();
-
-        userRepository.save(user);
-
-        String jwtToken = jwtService.generateToken(user);
-        String refreshToken = jwtService.generateRefreshToken(user);
-
-        return AuthenticationResponse.builder()
-                .accessToken(jwtToken)
-                .refreshToken(refreshToken).build();
+        long startNanos = System.nanoTime();
+        boolean success = false;
+        try {
+            User user = User.builder()
+                    .firstName(request.getFirstName())
+                    .lastName(request.getLastName())
+                    .username(request.getUsername())
+                    .password(passwordEncoder.encode(request.getPassword()))
+                    .role(Role.USER).build();
+
+            userRepository.save(user);
+
+            AuthenticationResponse response = startSession(user);
+            success = true;
+            return response;
+        } finally {
+            authenticationMetrics.record(Operation.REGISTER, success, startNanos);
+        }
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Builds the tokens from the principal the provider already loaded, so a login costs one user lookup.
+     * Runs outside a transaction: that lookup has its own, and no connection is held during the hash check.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getUsername(), request.getPassword()));
-
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found by username: " + request.getUsername()));
-
-        String jwtToken = jwtService.generateToken(user);
-        String refreshToken = jwtService.generateRefreshToken(user);
-
-        return AuthenticationResponse.builder()
-                .accessToken(jwtToken)
-                .refreshToken(refreshToken).build();
+        long startNanos = System.nanoTime();
+        boolean success = false;
+        try {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            request.getUsername(), request.getPassword()));
+
+            User user = (User) authentication.getPrincipal();
+            passwordUpgradeService.upgradeIfNeeded(user, request.getPassword());
+
+            AuthenticationResponse response = startSession(user);
+            success = true;
+            return response;
+        } finally {
+            authenticationMetrics.record(Operation.AUTHENTICATE, success, startNanos);
+        }
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Rotates the refresh token: the response carries a new one and the presented token is spent.
+     * Runs outside a transaction, so that the revocation of a reused token's family commits with the rejection.
+     * A missing, unparsable or invalid token is rejected with InvalidRefreshTokenException, answered with 401.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
-    public void refreshToken(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-        if (Objects.isNull(authHeader) || !authHeader.startsWith(BEARER_PREFIX)) {
-            return;
+    public AuthenticationResponse refreshToken(String authHeader) {
+        long startNanos = System.nanoTime();
+        boolean success = false;
+        try {
+            if (Objects.isNull(authHeader) || !authHeader.startsWith(BEARER_PREFIX)) {
+                throw new InvalidRefreshTokenException("Missing bearer refresh token");
+            }
+
+            VerifiedToken verifiedToken = verifyRefreshToken(authHeader.substring(BEARER_PREFIX.length()));
+            String username = verifiedToken.getSubject();
+
+            // a deleted user is answered like any other invalid token, not with a 404 that tells the username exists
+            User user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+
+            if (!jwtService.isTokenValid(verifiedToken, user)) {
+                throw new InvalidRefreshTokenException("Invalid refresh token");
+            }
+
+            String rotatedRefreshToken = refreshTokenService.rotate(verifiedToken, user);
+            String jwtToken = generateAccessToken(user, verifiedToken.getFamilyId());
+
+            success = true;
+            return AuthenticationResponse.builder()
+                    .accessToken(jwtToken)
+                    .refreshToken(rotatedRefreshToken).build();
+        } finally {
+            authenticationMetrics.record(Operation.REFRESH, success, startNanos);
         }
+    }
 
-        String refreshToken = authHeader.substring(BEARER_PREFIX.length());
-        String username = jwtService.extractUsername(refreshToken);
+    /**
+     * A login or registration starts a refresh token family; its access tokens carry the family id as sid.
+     */
+    private AuthenticationResponse startSession(User user) {
+        String familyId = UUID.randomUUID().toString();
+        return AuthenticationResponse.builder()
+                .accessToken(generateAccessToken(user, familyId))
+                .refreshToken(refreshTokenService.issue(user, familyId)).build();
+    }
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found by username: " + username));
+    private String generateAccessToken(User user, String familyId) {
+        return jwtService.generateToken(user, Map.of(VerifiedToken.SESSION_ID_CLAIM, familyId));
+    }
 
-        if (jwtService.isTokenValid(refreshToken, user)) {
-            String jwtToken = jwtService.generateToken(user);
-            AuthenticationResponse authResponse = AuthenticationResponse.builder()
-                    .accessToken(jwtToken)
-                    .refreshToken(refreshToken).build();
-            new ObjectMapper().writeValue(response.getOutputStream(), authResponse);
+    private VerifiedToken verifyRefreshToken(String refreshToken) {
+        try {
+            return jwtService.verifyToken(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidRefreshTokenException(e.getMessage());
         }
     }
 
@@ -1,30 +1,33 @@
 package com.example.springsecuritydemoservice.service.impl;
 
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.security.JwtKeyProvider;
+import com.example.springsecuritydemoservice.security.PrincipalSource;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
 import com.example.springsecuritydemoservice.service.JwtService;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+
+import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
-
 import java.time.Duration;
 
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
+@RequiredArgsConstructor
 @Service
 public class JwtServiceImpl implements JwtService {
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+
+    private final JwtKeyProvider jwtKeyProvider;
 
     @Value("${jwt.tokenExpiration}")
     private Duration tokenExpiration;
@@ -32,6 +35,9 @@ public class JwtServiceImpl implements JwtService {
     @Value("${jwt.refreshTokenExpiration}")
     private Duration refreshTokenExpiration;
 
+    @Value("${jwt.principalSource:DATABASE}")
+    private PrincipalSource principalSource;
+
     @Override
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -48,49 +54,65 @@ public class JwtServiceImpl implements JwtService {
         return generateToken(userDetails, new HashMap<>());
     }
 
+    /**
+     * Access tokens get a random jti, by which they can be revoked before they expire.
+     */
     @Override
     public String generateToken(UserDetails userDetails, Map<String, Object> extraClaims) {
-        return buildToken(userDetails, tokenExpiration, extraClaims);
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        claims.putIfAbsent(Claims.ID, UUID.randomUUID().toString());
+        return buildToken(userDetails, tokenExpiration, claims);
     }
 
     @Override
     public String generateRefreshToken(UserDetails userDetails) {
-        return buildToken(userDetails, refreshTokenExpiration, new HashMap<>());
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(VerifiedToken.TOKEN_TYPE_CLAIM, VerifiedToken.REFRESH_TOKEN_TYPE);
+        return buildToken(userDetails, refreshTokenExpiration, claims);
     }
 
     @Override
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    public String generateRefreshToken(UserDetails userDetails, String tokenId, String familyId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(Claims.ID, tokenId);
+        claims.put(VerifiedToken.FAMILY_ID_CLAIM, familyId);
+        claims.put(VerifiedToken.TOKEN_TYPE_CLAIM, VerifiedToken.REFRESH_TOKEN_TYPE);
+        return buildToken(userDetails, refreshTokenExpiration, claims);
     }
 
-    private String buildToken(UserDetails userDetails, Duration expiration, Map<String, Object> extraClaims) {
-        return Jwts
-                .builder()
-                .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(new Date().getTime() + expiration.toMillis()))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
-                .compact();
+    @Override
+    public VerifiedToken verifyToken(String token) {
+        return VerifiedToken.of(extractAllClaims(token));
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    @Override
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return isTokenValid(verifyToken(token), userDetails);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    @Override
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.getSubject().equals(userDetails.getUsername()) && !token.isExpired();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token).getBody();
+    private String buildToken(UserDetails userDetails, Duration expiration, Map<String, Object> extraClaims) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> claims = extraClaims;
+        if (principalSource == PrincipalSource.CLAIMS && userDetails instanceof User user) {
+            claims = new HashMap<>(extraClaims);
+            claims.put(VerifiedToken.USER_ID_CLAIM, user.getId());
+            claims.put(VerifiedToken.ROLE_CLAIM, user.getRole().name());
+        }
+        return jwtKeyProvider.sign(Jwts
+                .builder()
+                .setClaims(claims)
+                .setSubject(userDetails.getUsername())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiration.toMillis())));
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private Claims extractAllClaims(String token) {
+        return jwtKeyProvider.getParser()
+                .parseClaimsJws(token).getBody();
     }
 }
@@ -0,0 +1,114 @@
+package com.example.springsecuritydemoservice.service.impl;
+
+import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.service.PasswordUpgradeService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-hashes a password whose stored encoding is outdated after a successful login.
+ * The work runs on a single background thread; a skipped or failed upgrade is retried on the next login.
+ */
+@Slf4j
+@Profile("!reactive")
+@Service
+public class PasswordUpgradeServiceImpl implements PasswordUpgradeService, DisposableBean {
+
+    private static final String THREAD_NAME_PREFIX = "password-upgrade-";
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final Executor executor;
+
+    @Autowired
+    public PasswordUpgradeServiceImpl(UserRepository userRepository,
+                                      PasswordEncoder passwordEncoder,
+                                      UserCache userCache,
+                                      @Value("${passwordHashing.upgradeQueueCapacity:1000}") int queueCapacity,
+                                      Environment environment) {
+        this(userRepository, passwordEncoder, userCache, new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(environment)));
+    }
+
+    public PasswordUpgradeServiceImpl(UserRepository userRepository,
+                                      PasswordEncoder passwordEncoder,
+                                      UserCache userCache,
+                                      Executor executor) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.userCache = userCache;
+        this.executor = executor;
+    }
+
+    @Override
+    public void upgradeIfNeeded(UserDetails user, String rawPassword) {
+        String currentPassword = user.getPassword();
+        if (!passwordEncoder.upgradeEncoding(currentPassword)) {
+            return;
+        }
+
+        String username = user.getUsername();
+        try {
+            executor.execute(() -> upgrade(username, currentPassword, rawPassword));
+        } catch (RejectedExecutionException e) {
+            log.debug("Password upgrade for {} skipped, upgrade queue is full", username);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * The upgrade mostly waits on the hashing pool and the database, so it follows the
+     * request threads onto virtual threads when spring.threads.virtual.enabled is active.
+     */
+    private static ThreadFactory threadFactory(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor(THREAD_NAME_PREFIX).getVirtualThreadFactory();
+        }
+        return new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+    }
+
+    private void upgrade(String username, String currentPassword, String rawPassword) {
+        try {
+            String upgradedPassword = passwordEncoder.encode(rawPassword);
+            if (userRepository.updatePasswordIfUnchanged(username, currentPassword, upgradedPassword) > 0) {
+                userCache.removeUserFromCache(username);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Password upgrade for {} failed: {}", username, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.springsecuritydemoservice.service.impl;
+
+import com.example.springsecuritydemoservice.exception.custom.InvalidRefreshTokenException;
+
+import com.example.springsecuritydemoservice.model.RefreshToken;
+import com.example.springsecuritydemoservice.model.User;
+
+import com.example.springsecuritydemoservice.repository.RefreshTokenRepository;
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.service.JwtService;
+import com.example.springsecuritydemoservice.service.RefreshTokenService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import org.springframework.stereotype.Service;
+
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Issues refresh tokens in families and rotates them on every refresh: the presented token is marked used
+ * and a new one of the same family is returned. Presenting a used or revoked token again means it leaked,
+ * so its whole family is revoked and the user has to log in again.
+ * <p>
+ * The refresh_tokens table is the source of truth: a token is only accepted by the conditional update that
+ * marks it used. Used and revoked ids are also kept in a RevokedTokenIndex until they expire, so a replayed
+ * token is recognized without a query; the index is reloaded from the table every refreshToken.cleanupInterval,
+ * which also picks up tokens revoked by other instances.
+ */
+@Slf4j
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService, DisposableBean {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtService jwtService;
+    private final Clock clock;
+    private final Duration refreshTokenExpiration;
+    private final RevokedTokenIndex revokedTokenIndex;
+
+    private ScheduledExecutorService cleanupExecutor;
+
+    @Autowired
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                                   JwtService jwtService,
+                                   Clock clock,
+                                   @Value("${jwt.refreshTokenExpiration}") Duration refreshTokenExpiration,
+                                   @Value("${refreshToken.revokedIndex.expectedSize:100000}") int expectedSize,
+                                   @Value("${refreshToken.revokedIndex.falsePositiveRate:0.01}") double falsePositiveRate,
+                                   @Value("${refreshToken.cleanupInterval:10m}") Duration cleanupInterval) {
+        this(refreshTokenRepository, jwtService, clock, refreshTokenExpiration,
+                new RevokedTokenIndex(expectedSize, falsePositiveRate));
+
+        long intervalMillis = cleanupInterval.toMillis();
+        cleanupExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("refresh-token-cleanup-"));
+        cleanupExecutor.scheduleWithFixedDelay(this::cleanUp, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                                   JwtService jwtService,
+                                   Clock clock,
+                                   Duration refreshTokenExpiration,
+                                   RevokedTokenIndex revokedTokenIndex) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtService = jwtService;
+        this.clock = clock;
+        this.refreshTokenExpiration = refreshTokenExpiration;
+        this.revokedTokenIndex = revokedTokenIndex;
+        reloadRevokedIndex();
+    }
+
+    /**
+     * Starts a new family, for a login or a registration.
+     */
+    @Transactional
+    @Override
+    public String issue(User user, String familyId) {
+        return issue(user, familyId, clock.instant());
+    }
+
+    /**
+     * The revocation of a family must survive the rejection, so InvalidRefreshTokenException commits.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    @Override
+    public String rotate(VerifiedToken refreshToken, User user) {
+        String tokenId = refreshToken.getTokenId();
+        String familyId = refreshToken.getFamilyId();
+        if (Objects.isNull(tokenId) || Objects.isNull(familyId)) {
+            throw new InvalidRefreshTokenException("Not a refresh token");
+        }
+
+        Instant now = clock.instant();
+        if (revokedTokenIndex.isRevoked(tokenId)) {
+            revokeFamily(familyId, user, now);
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+
+        // the update is the check: it fails for a token used on another instance or revoked meanwhile
+        if (refreshTokenRepository.markUsed(tokenId, user.getId(), now) == 0) {
+            revokeFamily(familyId, user, now);
+            throw new InvalidRefreshTokenException("Refresh token has already been used or revoked");
+        }
+
+        revokeAfterCommit(List.of(RefreshToken.builder()
+                .id(tokenId)
+                .expiresAt(refreshToken.getExpiration()).build()));
+        return issue(user, familyId, now);
+    }
+
+    /**
+     * Ends one session, on logout.
+     */
+    @Transactional
+    @Override
+    public void revokeFamily(String familyId) {
+        Instant now = clock.instant();
+        if (refreshTokenRepository.revokeFamily(familyId, now) > 0) {
+            revokeAfterCommit(unexpired(refreshTokenRepository.findByFamilyId(familyId), now));
+        }
+    }
+
+    /**
+     * Logs the user out everywhere, after a password change.
+     */
+    @Transactional
+    @Override
+    public void revokeAll(Long userId) {
+        Instant now = clock.instant();
+        if (refreshTokenRepository.revokeByUserId(userId, now) > 0) {
+            revokeAfterCommit(refreshTokenRepository.findByUserIdAndExpiresAtAfter(userId, now));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (Objects.nonNull(cleanupExecutor)) {
+            cleanupExecutor.shutdownNow();
+        }
+    }
+
+    void cleanUp() {
+        try {
+            int deleted = refreshTokenRepository.deleteExpired(clock.instant());
+            log.debug("Deleted {} expired refresh tokens", deleted);
+            reloadRevokedIndex();
+        } catch (RuntimeException e) {
+            // an exception would cancel the scheduled task; try again at the next interval
+            log.warn("Refresh token cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private String issue(User user, String familyId, Instant now) {
+        String tokenId = UUID.randomUUID().toString();
+        String token = jwtService.generateRefreshToken(user, tokenId, familyId);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .id(tokenId)
+                .familyId(familyId)
+                .userId(user.getId())
+                .expiresAt(now.plus(refreshTokenExpiration)).build());
+        return token;
+    }
+
+    private void revokeFamily(String familyId, User user, Instant now) {
+        int revoked = refreshTokenRepository.revokeFamily(familyId, now);
+        if (revoked > 0) {
+            log.warn("Refresh token reuse by user {}: revoked {} tokens of family {}", user.getId(), revoked, familyId);
+        }
+        revokeAfterCommit(unexpired(refreshTokenRepository.findByFamilyId(familyId), now));
+    }
+
+    private static List<RefreshToken> unexpired(List<RefreshToken> tokens, Instant now) {
+        return tokens.stream()
+                .filter(token -> token.getExpiresAt().isAfter(now))
+                .toList();
+    }
+
+    /**
+     * Adds the ids to the index only once the transaction that rejects them in the table has committed.
+     */
+    private void revokeAfterCommit(Collection<RefreshToken> tokens) {
+        Runnable revoke = () -> tokens.forEach(token -> revokedTokenIndex.revoke(token.getId(), token.getExpiresAt()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revoke.run();
+                }
+            });
+        } else {
+            revoke.run();
+        }
+    }
+
+    private void reloadRevokedIndex() {
+        Instant now = clock.instant();
+        revokedTokenIndex.revokeAll(refreshTokenRepository.findRejectedUntilExpiry(now).stream()
+                .collect(Collectors.toMap(RefreshToken::getId, RefreshToken::getExpiresAt)));
+        revokedTokenIndex.prune(now);
+        log.debug("Loaded {} used or revoked refresh tokens", revokedTokenIndex.size());
+    }
+}
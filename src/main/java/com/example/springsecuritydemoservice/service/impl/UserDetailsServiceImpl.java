@@ -1,28 +1,44 @@
 package com.example.springsecuritydemoservice.service.impl;
 
+import com.example.springsecuritydemoservice.model.User;
 import com.example.springsecuritydemoservice.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-@Transactional
+import java.util.Objects;
+
+/**
+ * Not transactional on purpose: a cache hit must not borrow a connection,
+ * and findByUsername runs in the repository's own read-only transaction.
+ */
 @RequiredArgsConstructor
+@Profile("!reactive")
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
 
-    @Transactional(readOnly = true)
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username)
+        UserDetails cachedUser = userCache.getUserFromCache(username);
+        if (Objects.nonNull(cachedUser)) {
+            return cachedUser;
+        }
+
+        User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found by username: " + username));
+        userCache.putUserInCache(user);
+        return user;
     }
 
 }
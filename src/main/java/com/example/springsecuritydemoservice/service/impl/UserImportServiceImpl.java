@@ -0,0 +1,290 @@
+package com.example.springsecuritydemoservice.service.impl;
+
+import com.example.springsecuritydemoservice.dto.UserImportResult;
+import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
+
+import com.example.springsecuritydemoservice.exception.custom.InvalidImportException;
+
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+
+import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.security.BoundedPasswordEncoder;
+import com.example.springsecuritydemoservice.service.UserImportService;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.core.NestedExceptionUtils;
+
+import org.springframework.dao.DataAccessException;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Imports users from NDJSON or CSV, one user per line, without holding the whole input in memory.
+ * Rows are collected into batches: usernames are checked with one query, passwords are hashed in parallel
+ * and the users are inserted with saveAll, which Hibernate sends as JDBC batches.
+ * The import hashes on its own pool, not through the bounded pool that serves logins, so a large import
+ * neither fills the login queue with 503s nor fails rows because that queue is full.
+ * A row that cannot be imported is reported with its line number and the rest of the input carries on.
+ */
+@Slf4j
+@Profile("!reactive")
+@Service
+public class UserImportServiceImpl implements UserImportService, DisposableBean {
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String THREAD_NAME_PREFIX = "user-import-";
+    private static final List<String> CSV_COLUMNS = List.of("firstName", "lastName", "username", "password");
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final Executor executor;
+
+    @Autowired
+    public UserImportServiceImpl(UserRepository userRepository,
+                                 PasswordEncoder passwordEncoder,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 @Value("${userImport.batchSize:500}") int batchSize,
+                                 @Value("${userImport.hashingParallelism:0}") int hashingParallelism) {
+        this(userRepository, unbounded(passwordEncoder), objectMapper, validator, batchSize,
+                Executors.newFixedThreadPool(hashingParallelism > 0
+                                ? hashingParallelism
+                                : Math.max(Runtime.getRuntime().availableProcessors() / 2, 1),
+                        // the import threads hash themselves, so they stay platform threads like the hashing pool
+                        new CustomizableThreadFactory(THREAD_NAME_PREFIX)));
+    }
+
+    public UserImportServiceImpl(UserRepository userRepository,
+                                 PasswordEncoder passwordEncoder,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 int batchSize,
+                                 Executor executor) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public UserImportResult importUsers(InputStream inputStream, Format format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        UserImportResult result = new UserImportResult();
+
+        long lineNumber = 0;
+        ObjectReader rowReader = objectMapper.readerFor(RegisterRequest.class);
+        if (format == Format.CSV) {
+            rowReader = csvRowReader(reader.readLine());
+            lineNumber++;
+        }
+
+        Set<String> usernames = new HashSet<>();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        String line;
+        while (Objects.nonNull(line = reader.readLine())) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            ImportRow row = parse(rowReader, line, lineNumber, result);
+            if (Objects.isNull(row)) {
+                continue;
+            }
+            if (!usernames.add(row.username())) {
+                reject(result, row, "Duplicate username in import");
+                continue;
+            }
+
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                importBatch(batch, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, result);
+        }
+
+        log.info("User import finished: {} imported, {} failed", result.getImported(), result.getFailed());
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Import hashing is bounded by the import pool, so it skips the queue of the login hashing pool.
+     */
+    private static PasswordEncoder unbounded(PasswordEncoder passwordEncoder) {
+        if (passwordEncoder instanceof BoundedPasswordEncoder boundedPasswordEncoder) {
+            return boundedPasswordEncoder.getDelegate();
+        }
+        return passwordEncoder;
+    }
+
+    private ObjectReader csvRowReader(String header) {
+        if (Objects.isNull(header)) {
+            throw new InvalidImportException("CSV input has no header line");
+        }
+
+        List<String> columns = Arrays.stream(header.split(",")).map(String::trim).toList();
+        if (!columns.containsAll(CSV_COLUMNS)) {
+            throw new InvalidImportException("CSV header must contain the columns " + String.join(",", CSV_COLUMNS));
+        }
+
+        CsvSchema.Builder schema = CsvSchema.builder();
+        columns.forEach(schema::addColumn);
+        return new CsvMapper().readerFor(RegisterRequest.class).with(schema.build());
+    }
+
+    private ImportRow parse(ObjectReader rowReader, String line, long lineNumber, UserImportResult result) {
+        RegisterRequest request;
+        try {
+            request = rowReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            reject(result, lineNumber, null, "Malformed row: " + e.getOriginalMessage());
+            return null;
+        }
+
+        Set<ConstraintViolation<RegisterRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            reject(result, lineNumber, request.getUsername(), violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return null;
+        }
+        return new ImportRow(lineNumber, request);
+    }
+
+    private void importBatch(List<ImportRow> batch, UserImportResult result) {
+        Set<String> existingUsernames = userRepository.findExistingUsernames(
+                batch.stream().map(ImportRow::username).toList());
+
+        List<ImportRow> newRows = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            if (existingUsernames.contains(row.username())) {
+                reject(result, row, "Username already exists");
+            } else {
+                newRows.add(row);
+            }
+        }
+
+        List<CompletableFuture<String>> hashes = newRows.stream()
+                .map(row -> CompletableFuture.supplyAsync(
+                        () -> passwordEncoder.encode(row.request().getPassword()), executor))
+                .toList();
+
+        List<HashedRow> hashedRows = new ArrayList<>(newRows.size());
+        for (int i = 0; i < newRows.size(); i++) {
+            ImportRow row = newRows.get(i);
+            try {
+                hashedRows.add(new HashedRow(row, hashes.get(i).join()));
+            } catch (CompletionException e) {
+                reject(result, row, "Password hashing failed: " + e.getCause().getMessage());
+            }
+        }
+        if (hashedRows.isEmpty()) {
+            return;
+        }
+
+        try {
+            userRepository.saveAll(hashedRows.stream().map(HashedRow::toUser).toList());
+            result.setImported(result.getImported() + hashedRows.size());
+        } catch (DataAccessException e) {
+            // a username registered since the check fails the whole batch; retry row by row to find it
+            log.debug("Batch insert failed, retrying {} rows one by one: {}", hashedRows.size(), e.getMessage());
+            hashedRows.forEach(hashedRow -> importRow(hashedRow, result));
+        }
+    }
+
+    private void importRow(HashedRow hashedRow, UserImportResult result) {
+        try {
+            userRepository.save(hashedRow.toUser());
+            result.setImported(result.getImported() + 1);
+        } catch (DataAccessException e) {
+            reject(result, hashedRow.row(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+    }
+
+    private static void reject(UserImportResult result, ImportRow row, String message) {
+        reject(result, row.line(), row.username(), message);
+    }
+
+    private static void reject(UserImportResult result, long line, String username, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new UserImportResult.RowError(line, username, message));
+        }
+    }
+
+    private record ImportRow(long line, RegisterRequest request) {
+        String username() {
+            return request.getUsername();
+        }
+    }
+
+    private record HashedRow(ImportRow row, String password) {
+        User toUser() {
+            RegisterRequest request = row.request();
+            return User.builder()
+                    .firstName(request.getFirstName())
+                    .lastName(request.getLastName())
+                    .username(request.getUsername())
+                    .password(password)
+                    .role(Role.USER).build();
+        }
+    }
+}
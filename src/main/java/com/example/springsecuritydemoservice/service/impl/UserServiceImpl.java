@@ -1,6 +1,7 @@
 package com.example.springsecuritydemoservice.service.impl;
 
 import com.example.springsecuritydemoservice.dto.UserDto;
+import com.example.springsecuritydemoservice.dto.UserView;
 import com.example.springsecuritydemoservice.dto.auth.ChangePasswordRequest;
 
 import com.example.springsecuritydemoservice.exception.custom.UserNotFoundException;
@@ -8,35 +9,77 @@ import com.example.springsecuritydemoservice.exception.custom.WrongPasswordExcep
 
 import com.example.springsecuritydemoservice.model.User;
 import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.service.RefreshTokenService;
 import com.example.springsecuritydemoservice.service.UserService;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.data.domain.PageRequest;
+
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @Transactional
 @RequiredArgsConstructor
+@Profile("!reactive")
 @Service(value = "userService")
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_PAGE_SIZE = 1000;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final RefreshTokenService refreshTokenService;
+    private final TransactionOperations transactionOperations;
 
     @Transactional(readOnly = true)
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public List<UserView> getAllUsers(Long afterId, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (Objects.nonNull(afterId)) {
+            return userRepository.findViewsAfterId(afterId, PageRequest.of(0, pageSize));
+        }
+        return userRepository.findViews(PageRequest.of(Math.max(page, 0), pageSize)).getContent();
+    }
+
+    /**
+     * Reads user views in keyset pages, each in a short transaction of its own, so the connection goes back to
+     * the pool while the consumer writes a page to a slow client. Views are not managed, so memory stays at one
+     * page however large the table is. A user added or deleted during the stream may or may not be part of it.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public void streamAllUsers(Consumer<UserView> consumer) {
+        long afterId = 0;
+        List<UserView> page;
+        do {
+            page = userRepository.findViewsAfterId(afterId, PageRequest.of(0, STREAM_PAGE_SIZE));
+            page.forEach(consumer);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == STREAM_PAGE_SIZE);
     }
 
     @Transactional(readOnly = true)
     @Override
-    public User getUserById(Long id) {
-        return userRepository.findById(id)
+    public UserView getUserById(Long id) {
+        return userRepository.findViewById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found by id: " + id));
     }
 
@@ -45,6 +88,8 @@ public class UserServiceImpl implements UserService {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found by id: " + id));
 
+        evictFromCache(existingUser.getUsername());
+
         existingUser.setFirstName(userDto.getFirstName());
         existingUser.setLastName(userDto.getLastName());
         existingUser.setUsername(userDto.getUsername());
@@ -57,8 +102,15 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found by id: " + id));
         userRepository.delete(user);
+        evictFromCache(user.getUsername());
     }
 
+    /**
+     * Both hashes run outside a transaction, so no connection is held while they run.
+     * The new hash is written only if the stored one is still the one checked, and in the same
+     * transaction as the refresh token revocation.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public void changePassword(Long id, ChangePasswordRequest request) {
         User user = userRepository.findById(id)
@@ -72,7 +124,29 @@ public class UserServiceImpl implements UserService {
             throw new WrongPasswordException("Password are not the same");
         }
 
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
+        String newPassword = passwordEncoder.encode(request.getNewPassword());
+        transactionOperations.executeWithoutResult(status -> {
+            if (userRepository.updatePasswordIfUnchanged(user.getUsername(), user.getPassword(), newPassword) == 0) {
+                throw new WrongPasswordException("Password has been changed meanwhile");
+            }
+            evictFromCache(user.getUsername());
+            refreshTokenService.revokeAll(user.getId());
+        });
+    }
+
+    /**
+     * Evicts now and once more after commit, so a concurrent login cannot
+     * re-cache the old row between the eviction and the commit.
+     */
+    private void evictFromCache(String username) {
+        userCache.removeUserFromCache(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCache.removeUserFromCache(username);
+                }
+            });
+        }
     }
 }
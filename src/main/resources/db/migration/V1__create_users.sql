@@ -0,0 +1,13 @@
+-- Baseline: the users table as Hibernate's ddl-auto created it before migrations were introduced.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+create table if not exists users (
+    id         bigserial    not null,
+    created_at timestamp(6),
+    first_name varchar(255),
+    last_name  varchar(255),
+    password   varchar(255),
+    role       varchar(255) check (role in ('USER', 'ADMIN')),
+    username   varchar(255) not null,
+    primary key (id),
+    unique (username)
+);
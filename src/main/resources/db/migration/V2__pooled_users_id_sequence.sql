@@ -0,0 +1,8 @@
+-- Hibernate takes user ids from users_id_seq in blocks of 50 (pooled-lo: each nextval is the first id of a block),
+-- so it no longer calls nextval for every insert.
+-- The sequence restarts after the highest existing id: existing ids are kept and no id is handed out twice.
+create sequence if not exists users_id_seq owned by users.id;
+alter sequence users_id_seq increment by 50;
+select setval('users_id_seq', coalesce(max(id), 0) + 1, false) from users;
+-- inserts that do not go through Hibernate (the reactive edition, manual SQL) still get an id, one block each
+alter table users alter column id set default nextval('users_id_seq');
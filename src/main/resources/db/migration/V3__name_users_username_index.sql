@@ -0,0 +1,11 @@
+-- username lookups (login, refresh, import) are exact matches and use the unique index on username;
+-- id paging and streaming use the primary key, and no query orders by created_at or compares lower(username).
+-- Hibernate named the unique constraint uk_r43af9ap4edm43mmtq01oddj6 in databases it created;
+-- rename it (and its index) to the name V1 gives it, so every database has the same users_username_key.
+do $$
+begin
+    if exists (select 1 from pg_constraint where conname = 'uk_r43af9ap4edm43mmtq01oddj6') then
+        alter table users rename constraint uk_r43af9ap4edm43mmtq01oddj6 to users_username_key;
+    end if;
+end
+$$;
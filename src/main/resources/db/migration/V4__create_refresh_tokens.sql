@@ -0,0 +1,17 @@
+-- One row per issued refresh token, keyed by its jti. Tokens rotated from the same login share a family_id:
+-- presenting a token that was already used revokes the whole family.
+-- family_id serves family revocation, user_id revocation on a password change and the delete cascade,
+-- expires_at the cleanup of expired rows and the load of the revoked-token index at startup.
+create table refresh_tokens (
+    id         varchar(36)                 not null,
+    family_id  varchar(36)                 not null,
+    user_id    bigint                      not null references users (id) on delete cascade,
+    expires_at timestamp(6) with time zone not null,
+    used_at    timestamp(6) with time zone,
+    revoked_at timestamp(6) with time zone,
+    primary key (id)
+);
+
+create index refresh_tokens_family_id_idx on refresh_tokens (family_id);
+create index refresh_tokens_user_id_idx on refresh_tokens (user_id);
+create index refresh_tokens_expires_at_idx on refresh_tokens (expires_at);
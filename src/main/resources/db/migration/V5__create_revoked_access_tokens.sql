@@ -0,0 +1,9 @@
+-- jti of access tokens revoked before they expire, e.g. on logout. Rows are only needed until expires_at:
+-- the cleanup deletes them by the expires_at index, which also serves the load of the in-memory denylist.
+create table revoked_access_tokens (
+    id         varchar(36)                 not null,
+    expires_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+create index revoked_access_tokens_expires_at_idx on revoked_access_tokens (expires_at);
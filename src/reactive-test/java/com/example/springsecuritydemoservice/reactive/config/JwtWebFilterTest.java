@@ -0,0 +1,227 @@
+package com.example.springsecuritydemoservice.reactive.config;
+
+import com.example.springsecuritydemoservice.metrics.JwtFilterMetrics;
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.security.JwtKeyProvider;
+import com.example.springsecuritydemoservice.security.PrincipalSource;
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.security.VerifiedTokenCache;
+import com.example.springsecuritydemoservice.service.impl.JwtServiceImpl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.example.springsecuritydemoservice.util.TestUtil.JWT_SECRET;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtWebFilterTest {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final User user = User.builder()
+            .id(1L)
+            .firstName("foo")
+            .lastName("bar")
+            .username("foobar@mail.ru")
+            .password("123")
+            .role(Role.USER).build();
+
+    private JwtServiceImpl jwtService;
+    private ReactiveUserDetailsService userDetailsService;
+    private MeterRegistry meterRegistry;
+    private RevokedTokenIndex accessTokenDenylist;
+    private JwtWebFilter filter;
+
+    private final AtomicBoolean chainCalled = new AtomicBoolean();
+    private final AtomicReference<Authentication> chainAuthentication = new AtomicReference<>();
+
+    private final WebFilterChain chain = exchange -> {
+        chainCalled.set(true);
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .doOnNext(chainAuthentication::set)
+                .then();
+    };
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtServiceImpl(new JwtKeyProvider(JWT_SECRET));
+        ReflectionTestUtils.setField(jwtService, "tokenExpiration", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", Duration.ofMinutes(30));
+        userDetailsService = mock(ReactiveUserDetailsService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        accessTokenDenylist = new RevokedTokenIndex(100, 0.01);
+        filter = new JwtWebFilter(jwtService,
+                new VerifiedTokenCache(false, 0, Duration.ZERO, Clock.systemUTC(), meterRegistry), userDetailsService,
+                accessTokenDenylist, Jackson2ObjectMapperBuilder.json().build(), new JwtFilterMetrics(meterRegistry));
+    }
+
+    @DisplayName("Valid token puts the user into the reactive security context")
+    @Test
+    void validTokenAuthenticates() {
+        when(userDetailsService.findByUsername(eq(user.getUsername()))).thenReturn(Mono.just(user));
+        MockServerWebExchange exchange = exchangeWithToken(jwtService.generateToken(user));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(chainCalled).isTrue();
+        assertThat(chainAuthentication.get().getName()).isEqualTo(user.getUsername());
+        assertThat(outcomeCount("valid")).isEqualTo(1);
+    }
+
+    @DisplayName("Claims principal source authenticates without a user lookup")
+    @Test
+    void claimsPrincipalSourceDoesNotLoadUser() {
+        ReflectionTestUtils.setField(filter, "principalSource", PrincipalSource.CLAIMS);
+        ReflectionTestUtils.setField(jwtService, "principalSource", PrincipalSource.CLAIMS);
+        MockServerWebExchange exchange = exchangeWithToken(jwtService.generateToken(user));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(chainAuthentication.get().getPrincipal()).isInstanceOf(User.class);
+        assertThat(((User) chainAuthentication.get().getPrincipal()).getId()).isEqualTo(user.getId());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @DisplayName("Revoked token is not authenticated")
+    @Test
+    void revokedTokenIsNotAuthenticated() {
+        String token = jwtService.generateToken(user);
+        VerifiedToken verifiedToken = jwtService.verifyToken(token);
+        accessTokenDenylist.revoke(verifiedToken.getTokenId(), verifiedToken.getExpiration());
+        MockServerWebExchange exchange = exchangeWithToken(token);
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(chainCalled).isTrue();
+        assertThat(chainAuthentication.get()).isNull();
+        verifyNoInteractions(userDetailsService);
+        assertThat(outcomeCount("revoked")).isEqualTo(1);
+    }
+
+    @DisplayName("Refresh token is not accepted as a bearer token")
+    @Test
+    void refreshTokenDoesNotAuthenticate() {
+        MockServerWebExchange exchange = exchangeWithToken(jwtService.generateRefreshToken(user));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(chainCalled).isTrue();
+        assertThat(chainAuthentication.get()).isNull();
+        verifyNoInteractions(userDetailsService);
+        assertThat(outcomeCount("invalid")).isEqualTo(1);
+    }
+
+    @DisplayName("Refresh request is left to the refresh endpoint")
+    @Test
+    void refreshRequestIsNotFiltered() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.post("/api/v1/auth/refresh-token")
+                        .header(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + "not-a-jwt"));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(chainCalled).isTrue();
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+    }
+
+    @DisplayName("Logout request is left to the logout handler, even with an expired token")
+    @Test
+    void logoutRequestIsNotFiltered() {
+        ReflectionTestUtils.setField(jwtService, "tokenExpiration", Duration.ofMinutes(-1));
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.post("/api/v1/auth/logout")
+                        .header(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + jwtService.generateToken(user)));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(chainCalled).isTrue();
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+    }
+
+    @DisplayName("Request without a bearer token passes through unauthenticated")
+    @Test
+    void noHeaderPassesThrough() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/users"));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(chainCalled).isTrue();
+        assertThat(chainAuthentication.get()).isNull();
+        assertThat(outcomeCount("no_header")).isEqualTo(1);
+    }
+
+    @DisplayName("Expired token answers 403 without calling the chain")
+    @Test
+    void expiredTokenIsForbidden() {
+        ReflectionTestUtils.setField(jwtService, "tokenExpiration", Duration.ofMinutes(-1));
+        MockServerWebExchange exchange = exchangeWithToken(jwtService.generateToken(user));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(chainCalled).isFalse();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(exchange.getResponse().getBodyAsString().block()).contains("expired");
+        assertThat(outcomeCount("expired")).isEqualTo(1);
+    }
+
+    @DisplayName("Unknown user answers 500 without calling the chain")
+    @Test
+    void unknownUserIsServerError() {
+        when(userDetailsService.findByUsername(eq(user.getUsername()))).thenReturn(Mono.empty());
+        MockServerWebExchange exchange = exchangeWithToken(jwtService.generateToken(user));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(chainCalled).isFalse();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(outcomeCount("user_not_found")).isEqualTo(1);
+    }
+
+    private MockServerWebExchange exchangeWithToken(String token) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/users")
+                .header(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + token));
+    }
+
+    private long outcomeCount(String outcome) {
+        return meterRegistry.get(JwtFilterMetrics.DURATION_METRIC).tag("outcome", outcome).timer().count();
+    }
+
+}
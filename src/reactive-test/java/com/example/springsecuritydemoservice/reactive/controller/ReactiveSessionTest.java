@@ -0,0 +1,100 @@
+package com.example.springsecuritydemoservice.reactive.controller;
+
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationResponse;
+import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
+import com.example.springsecuritydemoservice.reactive.repository.ReactiveUserRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import org.springframework.http.HttpHeaders;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Refresh token rotation, reuse detection and logout of the reactive edition against the database.
+ */
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+@SpringBootTest
+class ReactiveSessionTest {
+
+    private static final String AUTH_PATH = "/api/v1/auth";
+
+    private final String username = "reactive-session-" + UUID.randomUUID() + "@mail.ru";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.findByUsername(username).flatMap(userRepository::delete).block();
+    }
+
+    @DisplayName("Refresh returns a new refresh token and a reused one revokes the family")
+    @Test
+    void reusedRefreshTokenRevokesFamily() {
+        AuthenticationResponse registered = register();
+
+        AuthenticationResponse refreshed = refresh(registered.getRefreshToken())
+                .expectStatus().isOk()
+                .expectBody(AuthenticationResponse.class).returnResult().getResponseBody();
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(registered.getRefreshToken());
+
+        refresh(registered.getRefreshToken()).expectStatus().isUnauthorized();
+        refresh(refreshed.getRefreshToken()).expectStatus().isUnauthorized();
+    }
+
+    @DisplayName("Access and refresh tokens are rejected after logout")
+    @Test
+    void sessionIsRejectedAfterLogout() {
+        AuthenticationResponse tokens = register();
+        String authorization = "Bearer " + tokens.getAccessToken();
+        String userPath = "/api/v1/users/" + userRepository.findByUsername(username).block().getId();
+
+        webTestClient.get().uri(userPath).header(HttpHeaders.AUTHORIZATION, authorization)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.post().uri(AUTH_PATH + "/logout").header(HttpHeaders.AUTHORIZATION, authorization)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri(userPath).header(HttpHeaders.AUTHORIZATION, authorization)
+                .exchange()
+                .expectStatus().isForbidden();
+        refresh(tokens.getRefreshToken()).expectStatus().isUnauthorized();
+    }
+
+    private AuthenticationResponse register() {
+        return webTestClient.post().uri(AUTH_PATH + "/register")
+                .bodyValue(RegisterRequest.builder()
+                        .firstName("foo")
+                        .lastName("bar")
+                        .username(username)
+                        .password("123").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthenticationResponse.class).returnResult().getResponseBody();
+    }
+
+    private WebTestClient.ResponseSpec refresh(String refreshToken) {
+        return webTestClient.post().uri(AUTH_PATH + "/refresh-token")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken)
+                .exchange();
+    }
+}
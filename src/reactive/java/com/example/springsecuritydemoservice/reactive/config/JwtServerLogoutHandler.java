@@ -0,0 +1,80 @@
+package com.example.springsecuritydemoservice.reactive.config;
+
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.service.AccessTokenRevocationService;
+import com.example.springsecuritydemoservice.service.JwtService;
+import com.example.springsecuritydemoservice.service.RefreshTokenService;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.http.HttpHeaders;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.WebFilterExchange;
+import org.springframework.security.web.server.authentication.logout.ServerLogoutHandler;
+
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Objects;
+
+/**
+ * WebFlux counterpart of JwtLogoutHandler: revokes the bearer access token and the refresh token family named
+ * by its sid claim. The revocation services run on JDBC, so they are called on the bounded elastic scheduler.
+ * JwtWebFilter skips the logout path, so the token is read from the header here, even when it has expired.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Profile("reactive")
+@Component
+public class JwtServerLogoutHandler implements ServerLogoutHandler {
+
+    private static final String BEARER_PREFIX = "Bearer";
+
+    private final JwtService jwtService;
+    private final AccessTokenRevocationService accessTokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
+
+    @Override
+    public Mono<Void> logout(WebFilterExchange exchange, Authentication authentication) {
+        String authHeader = exchange.getExchange().getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (Objects.isNull(authHeader) || !authHeader.startsWith(BEARER_PREFIX)) {
+            return Mono.empty();
+        }
+
+        return Mono.fromRunnable(() -> logout(authHeader.substring(BEARER_PREFIX.length())))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private void logout(String jwt) {
+        try {
+            VerifiedToken token = jwtService.verifyToken(jwt);
+            if (!token.isRefreshToken()) {
+                accessTokenRevocationService.revoke(token);
+            }
+            revokeSession(token);
+        } catch (ExpiredJwtException e) {
+            // the signature was checked before the expiry, so the session it names is still the caller's
+            revokeSession(VerifiedToken.of(e.getClaims()));
+        } catch (JwtException e) {
+            // an invalid token authenticates nothing, there is nothing to revoke
+            log.debug("Logout with an unusable token: {}", e.getMessage());
+        }
+    }
+
+    private void revokeSession(VerifiedToken token) {
+        String familyId = token.isRefreshToken() ? token.getFamilyId() : token.getSessionId();
+        if (Objects.nonNull(familyId)) {
+            refreshTokenService.revokeFamily(familyId);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.springsecuritydemoservice.reactive.config;
+
+import com.example.springsecuritydemoservice.exception.ErrorResponse;
+import com.example.springsecuritydemoservice.metrics.JwtFilterMetrics;
+import com.example.springsecuritydemoservice.security.PrincipalSource;
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.security.VerifiedTokenCache;
+import com.example.springsecuritydemoservice.service.JwtService;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.ExpiredJwtException;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import org.springframework.stereotype.Component;
+
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * WebFlux counterpart of JwtAuthenticationFilter with the same outcomes, metrics and error bodies.
+ * Signature checking is CPU-only and stays inline; the database lookup in DATABASE mode is a reactive query.
+ */
+@RequiredArgsConstructor
+@Profile("reactive")
+@Component
+public class JwtWebFilter implements WebFilter {
+
+    private static final String BEARER_PREFIX = "Bearer";
+
+    // the bearer token of a refresh is a refresh token, verified and answered by the endpoint itself
+    private static final String REFRESH_TOKEN_PATH = "/api/v1/auth/refresh-token";
+
+    // logout runs after this filter here, so JwtServerLogoutHandler reads the token itself, even an expired one
+    static final String LOGOUT_PATH = "/api/v1/auth/logout";
+
+    private final JwtService jwtService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ReactiveUserDetailsService userDetailsService;
+    private final RevokedTokenIndex accessTokenDenylist;
+
+    private final ObjectMapper objectMapper;
+    private final JwtFilterMetrics jwtFilterMetrics;
+
+    @Value("${jwt.principalSource:DATABASE}")
+    private PrincipalSource principalSource;
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (REFRESH_TOKEN_PATH.equals(path) || LOGOUT_PATH.equals(path)) {
+            return chain.filter(exchange);
+        }
+
+        final long startNanos = System.nanoTime();
+        final String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (Objects.isNull(authHeader) || !authHeader.startsWith(BEARER_PREFIX)) {
+            jwtFilterMetrics.record(JwtFilterMetrics.Outcome.NO_HEADER, startNanos);
+            return chain.filter(exchange);
+        }
+
+        final VerifiedToken verifiedToken;
+        try {
+            verifiedToken = verifiedTokenCache.getOrVerify(
+                    authHeader.substring(BEARER_PREFIX.length()), jwtService::verifyToken);
+        } catch (Exception e) {
+            return writeError(exchange, e, startNanos);
+        }
+
+        if (Objects.isNull(verifiedToken.getSubject()) || verifiedToken.isRefreshToken()) {
+            jwtFilterMetrics.record(JwtFilterMetrics.Outcome.INVALID, startNanos);
+            return chain.filter(exchange);
+        }
+        // almost always a Bloom filter miss, without a lookup in the denylist itself
+        if (accessTokenDenylist.isRevoked(verifiedToken.getTokenId())) {
+            jwtFilterMetrics.record(JwtFilterMetrics.Outcome.REVOKED, startNanos);
+            return chain.filter(exchange);
+        }
+
+        // errors are handled before the chain runs, so failures further down are not reported as this filter's
+        return authenticate(verifiedToken)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(e -> writeError(exchange, e, startNanos).then(Mono.empty()))
+                .flatMap(authentication -> {
+                    if (authentication.isEmpty()) {
+                        jwtFilterMetrics.record(JwtFilterMetrics.Outcome.INVALID, startNanos);
+                        return chain.filter(exchange);
+                    }
+                    jwtFilterMetrics.record(JwtFilterMetrics.Outcome.VALID, startNanos);
+                    return chain.filter(exchange)
+                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication.get()));
+                });
+    }
+
+    private Mono<Authentication> authenticate(VerifiedToken verifiedToken) {
+        return loadUserDetails(verifiedToken)
+                .filter(userDetails -> jwtService.isTokenValid(verifiedToken, userDetails))
+                .map(userDetails -> UsernamePasswordAuthenticationToken.authenticated(
+                        userDetails, null, userDetails.getAuthorities()));
+    }
+
+    private Mono<UserDetails> loadUserDetails(VerifiedToken verifiedToken) {
+        if (principalSource == PrincipalSource.CLAIMS && verifiedToken.hasPrincipalClaims()) {
+            return Mono.just(verifiedToken.toUser());
+        }
+        String username = verifiedToken.getSubject();
+        return userDetailsService.findByUsername(username)
+                .switchIfEmpty(Mono.error(() -> new UsernameNotFoundException("User not found by username: " + username)));
+    }
+
+    private Mono<Void> writeError(ServerWebExchange exchange, Throwable throwable, long startNanos) {
+        Exception exception = throwable instanceof Exception e ? e : new IllegalStateException(throwable);
+        jwtFilterMetrics.record(JwtFilterMetrics.outcomeOf(exception), startNanos);
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(exception instanceof ExpiredJwtException
+                ? HttpStatus.FORBIDDEN
+                : HttpStatus.INTERNAL_SERVER_ERROR);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(new ErrorResponse(exception.getMessage()));
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.example.springsecuritydemoservice.reactive.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Spring Boot leaves out the DataSource once there is an R2DBC ConnectionFactory, so it is declared here.
+ * Users are read and written over R2DBC; this small pool carries the JPA services shared with the servlet
+ * edition, refresh token families and the access token denylist, and the Flyway migrations.
+ */
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+@Configuration
+public class ReactiveJdbcConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
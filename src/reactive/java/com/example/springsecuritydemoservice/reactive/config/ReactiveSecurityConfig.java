@@ -0,0 +1,143 @@
+package com.example.springsecuritydemoservice.reactive.config;
+
+import com.example.springsecuritydemoservice.config.ManagementServerPort;
+import com.example.springsecuritydemoservice.reactive.service.impl.ReactiveUserDetailsServiceImpl;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.http.HttpStatus;
+
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+
+@Profile("reactive")
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+@RequiredArgsConstructor
+@Configuration
+public class ReactiveSecurityConfig {
+
+    private final JwtWebFilter jwtWebFilter;
+    private final JwtServerLogoutHandler jwtServerLogoutHandler;
+    private final ManagementServerPort managementServerPort;
+
+    private static final ServerWebExchangeMatcher PROMETHEUS_SCRAPE =
+            ServerWebExchangeMatchers.pathMatchers("/actuator/prometheus");
+
+    private static final String[] WHITE_LIST_URL = {
+            "/api/v1/auth/**",
+            "/.well-known/jwks.json",
+            "/actuator/health",
+            "/v2/api-docs",
+            "/v3/api-docs",
+            "/v3/api-docs/**",
+            "/swagger-resources",
+            "/swagger-resources/**",
+            "/configuration/ui",
+            "/configuration/security",
+            "/swagger-ui/**",
+            "/webjars/**",
+            "/swagger-ui.html"
+    };
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                // stateless like the servlet edition: a saved request would create a WebSession on every request,
+                // and InMemoryWebSessionStore creates it on the bounded elastic scheduler, behind the password checks
+                .requestCache(requestCache -> requestCache.requestCache(NoOpServerRequestCache.getInstance()))
+                .exceptionHandling(exceptions ->
+                        exceptions.authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN))
+                )
+                .authorizeExchange(exchange ->
+                        exchange
+                                .pathMatchers(WHITE_LIST_URL).permitAll()
+                                .matchers(prometheusScrapeOnManagementPort()).permitAll()
+                                .anyExchange().authenticated()
+                )
+                .addFilterAt(jwtWebFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .logout(logout ->
+                        logout.requiresLogout(ServerWebExchangeMatchers.pathMatchers(JwtWebFilter.LOGOUT_PATH))
+                                .logoutHandler(jwtServerLogoutHandler)
+                                .logoutSuccessHandler((exchange, authentication) -> Mono.empty())
+                )
+                .build();
+    }
+
+    /**
+     * The scrape is open on the management port only, which is not published; the public port answers it with 403.
+     */
+    private ServerWebExchangeMatcher prometheusScrapeOnManagementPort() {
+        return exchange -> isManagementPort(exchange)
+                ? PROMETHEUS_SCRAPE.matches(exchange)
+                : ServerWebExchangeMatcher.MatchResult.notMatch();
+    }
+
+    private boolean isManagementPort(ServerWebExchange exchange) {
+        InetSocketAddress localAddress = exchange.getRequest().getLocalAddress();
+        return Objects.nonNull(localAddress) && managementServerPort.matches(localAddress.getPort());
+    }
+
+    /**
+     * Checks the password on the password hashing scheduler and re-hashes outdated encodings
+     * through ReactiveUserDetailsServiceImpl after a successful login.
+     */
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(ReactiveUserDetailsServiceImpl userDetailsService,
+                                                                       PasswordEncoder passwordEncoder,
+                                                                       Scheduler passwordHashingScheduler) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        authenticationManager.setScheduler(passwordHashingScheduler);
+        authenticationManager.setUserDetailsPasswordService(userDetailsService);
+        return authenticationManager;
+    }
+
+    /**
+     * The threads that wait on BoundedPasswordEncoder. The shared bounded elastic scheduler has 10 threads per CPU:
+     * a login storm fills them with waits, the encoder's queue never fills, so it never answers 503, and every
+     * other blocking call queues behind the logins. Twice the encoder's workers and queue slots lets the callers
+     * past its capacity reach it and be rejected at once.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler passwordHashingScheduler(@Value("${passwordHashing.threads:0}") int threads,
+                                              @Value("${passwordHashing.queueCapacity:64}") int queueCapacity) {
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(2 * (workers + queueCapacity), Integer.MAX_VALUE, "password-check");
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.example.springsecuritydemoservice.reactive.controller;
+
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationRequest;
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationResponse;
+import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
+
+import com.example.springsecuritydemoservice.reactive.service.ReactiveAuthenticationService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.http.HttpHeaders;
+
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Mono;
+
+import static com.example.springsecuritydemoservice.controller.AuthenticationController.AUTH_CONTROLLER_PATH;
+
+@Tag(name = "authentication-controller", description = "Authentication controller")
+@RequiredArgsConstructor
+@Profile("reactive")
+@RestController
+@RequestMapping("${base-url}" + AUTH_CONTROLLER_PATH)
+public class ReactiveAuthenticationController {
+
+    private final ReactiveAuthenticationService authenticationService;
+
+    @Operation(summary = "Register new user")
+    @ApiResponse(responseCode = "200")
+    @PostMapping("/register")
+    public Mono<AuthenticationResponse> register(@RequestBody RegisterRequest request) {
+        return authenticationService.register(request);
+    }
+
+    @Operation(summary = "Authenticate user")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "User has been authenticated"),
+            @ApiResponse(responseCode = "401", description = "User not authorized"),
+    })
+    @PostMapping("/authenticate")
+    public Mono<AuthenticationResponse> authenticate(@RequestBody AuthenticationRequest request) {
+        return authenticationService.authenticate(request);
+    }
+
+    @Operation(summary = "Refresh token")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Token has been refreshed"),
+            @ApiResponse(responseCode = "401", description = "Refresh token is missing, invalid or expired"),
+    })
+    @PostMapping("/refresh-token")
+    public Mono<AuthenticationResponse> refreshToken(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        return authenticationService.refreshToken(authHeader);
+    }
+
+}
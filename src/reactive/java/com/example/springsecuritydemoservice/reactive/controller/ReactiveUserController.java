@@ -0,0 +1,126 @@
+package com.example.springsecuritydemoservice.reactive.controller;
+
+import com.example.springsecuritydemoservice.dto.UserDto;
+import com.example.springsecuritydemoservice.dto.UserView;
+import com.example.springsecuritydemoservice.dto.auth.ChangePasswordRequest;
+import com.example.springsecuritydemoservice.model.User;
+
+import com.example.springsecuritydemoservice.reactive.service.ReactiveUserService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static com.example.springsecuritydemoservice.controller.UserController.APPLICATION_NDJSON_VALUE;
+import static com.example.springsecuritydemoservice.controller.UserController.CHANGE_PASSWORD;
+import static com.example.springsecuritydemoservice.controller.UserController.DEFAULT_PAGE_SIZE;
+import static com.example.springsecuritydemoservice.controller.UserController.ID;
+import static com.example.springsecuritydemoservice.controller.UserController.STREAM;
+import static com.example.springsecuritydemoservice.controller.UserController.USER_CONTROLLER_PATH;
+
+@Tag(name = "user-controller", description = "User crud")
+@RequiredArgsConstructor
+@Profile("reactive")
+@RestController
+@RequestMapping("${base-url}" + USER_CONTROLLER_PATH)
+public class ReactiveUserController {
+
+    private static final String HAS_ROLE_ADMIN = "hasRole('ADMIN')";
+    private static final String ONLY_OWNER_BY_ID_OR_HAS_ROLE_ADMIN = """
+            hasRole('ADMIN') or @userSecurity.isOwner(authentication, #id)
+        """;
+
+    private final ReactiveUserService userService;
+
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Get user by id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "User was found"),
+            @ApiResponse(responseCode = "404", description = "User with this id wasn`t found")
+    })
+    @PreAuthorize(ONLY_OWNER_BY_ID_OR_HAS_ROLE_ADMIN)
+    @GetMapping(ID)
+    public Mono<UserView> getById(@PathVariable("id") long id) {
+        return userService.getUserById(id);
+    }
+
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Get users page ordered by id",
+            description = "Offset paging with page/size, or keyset paging with afterId/size when afterId is set")
+    @ApiResponse(responseCode = "200")
+    @PreAuthorize(HAS_ROLE_ADMIN)
+    @GetMapping
+    public Flux<UserView> getAll(@RequestParam(value = "page", defaultValue = "0") int page,
+                                 @RequestParam(value = "size", defaultValue = DEFAULT_PAGE_SIZE) int size,
+                                 @RequestParam(value = "afterId", required = false) Long afterId) {
+        return userService.getAllUsers(afterId, page, size);
+    }
+
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Stream all users as NDJSON")
+    @ApiResponse(responseCode = "200")
+    @PreAuthorize(HAS_ROLE_ADMIN)
+    @GetMapping(value = STREAM, produces = APPLICATION_NDJSON_VALUE)
+    public Flux<UserView> streamAll() {
+        return userService.streamAllUsers();
+    }
+
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Update user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "User has been updated"),
+            @ApiResponse(responseCode = "404", description = "User with this id wasn`t found")
+    })
+    @PreAuthorize(ONLY_OWNER_BY_ID_OR_HAS_ROLE_ADMIN)
+    @PutMapping(ID)
+    public Mono<User> update(@PathVariable("id") long id,
+                             @RequestBody @Valid UserDto userDto) {
+        return userService.updateUser(id, userDto);
+    }
+
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Delete user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "User has been deleted"),
+            @ApiResponse(responseCode = "404", description = "User with this id wasn`t found")
+    })
+    @PreAuthorize(ONLY_OWNER_BY_ID_OR_HAS_ROLE_ADMIN)
+    @DeleteMapping(ID)
+    public Mono<Void> delete(@PathVariable("id") long id) {
+        return userService.deleteUser(id);
+    }
+
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Change password")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Password has been changed")
+    })
+    @PreAuthorize(ONLY_OWNER_BY_ID_OR_HAS_ROLE_ADMIN)
+    @PatchMapping(CHANGE_PASSWORD)
+    public Mono<Void> changePassword(@PathVariable("id") long id, @RequestBody ChangePasswordRequest request) {
+        return userService.changePassword(id, request);
+    }
+
+}
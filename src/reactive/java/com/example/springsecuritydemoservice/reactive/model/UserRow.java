@@ -0,0 +1,53 @@
+package com.example.springsecuritydemoservice.reactive.model;
+
+import com.example.springsecuritydemoservice.dto.UserView;
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC mapping of the users table that the JPA {@link User} entity owns.
+ * Property names map to the same snake_case columns Hibernate's naming strategy produces.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Table("users")
+public class UserRow {
+    @Id
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String username;
+    private String password;
+    private Role role;
+    private LocalDateTime createdAt;
+
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .firstName(firstName)
+                .lastName(lastName)
+                .username(username)
+                .password(password)
+                .role(role)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    public UserView toView() {
+        return new UserView(id, firstName, lastName, username, role, createdAt);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.springsecuritydemoservice.reactive.repository;
+
+import com.example.springsecuritydemoservice.reactive.model.UserRow;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveUserRepository extends R2dbcRepository<UserRow, Long> {
+    Mono<UserRow> findByUsername(String username);
+
+    Flux<UserRow> findAllByOrderById(Pageable pageable);
+
+    Flux<UserRow> findByIdGreaterThanOrderById(Long afterId, Pageable pageable);
+
+    Flux<UserRow> findAllByOrderById();
+
+    @Modifying
+    @Query("update users set password = :newPassword where username = :username and password = :oldPassword")
+    Mono<Integer> updatePasswordIfUnchanged(@Param("username") String username,
+                                            @Param("oldPassword") String oldPassword,
+                                            @Param("newPassword") String newPassword);
+}
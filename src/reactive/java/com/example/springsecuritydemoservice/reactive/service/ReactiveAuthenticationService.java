@@ -0,0 +1,15 @@
+package com.example.springsecuritydemoservice.reactive.service;
+
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationRequest;
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationResponse;
+import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveAuthenticationService {
+    Mono<AuthenticationResponse> register(RegisterRequest request);
+
+    Mono<AuthenticationResponse> authenticate(AuthenticationRequest request);
+
+    Mono<AuthenticationResponse> refreshToken(String authHeader);
+}
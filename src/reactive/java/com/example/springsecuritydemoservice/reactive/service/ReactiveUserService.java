@@ -0,0 +1,20 @@
+package com.example.springsecuritydemoservice.reactive.service;
+
+import com.example.springsecuritydemoservice.dto.UserDto;
+import com.example.springsecuritydemoservice.dto.UserView;
+import com.example.springsecuritydemoservice.dto.auth.ChangePasswordRequest;
+import com.example.springsecuritydemoservice.model.User;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserService {
+    Flux<UserView> getAllUsers(Long afterId, int page, int size);
+    Flux<UserView> streamAllUsers();
+    Mono<UserView> getUserById(Long id);
+
+    Mono<User> updateUser(Long id, UserDto userDto);
+    Mono<Void> deleteUser(Long id);
+
+    Mono<Void> changePassword(Long id, ChangePasswordRequest request);
+}
@@ -0,0 +1,130 @@
+package com.example.springsecuritydemoservice.reactive.service.impl;
+
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationRequest;
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationResponse;
+import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
+
+import com.example.springsecuritydemoservice.exception.custom.InvalidRefreshTokenException;
+
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+
+import com.example.springsecuritydemoservice.reactive.model.UserRow;
+import com.example.springsecuritydemoservice.reactive.repository.ReactiveUserRepository;
+import com.example.springsecuritydemoservice.reactive.service.ReactiveAuthenticationService;
+
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.service.JwtService;
+import com.example.springsecuritydemoservice.service.RefreshTokenService;
+
+import io.jsonwebtoken.JwtException;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Hashing blocks, so it is subscribed on the password hashing scheduler and never runs on an event loop thread.
+ * Login goes through UserDetailsRepositoryReactiveAuthenticationManager, which does the same for matches.
+ * Refresh token families are kept by the RefreshTokenService of the servlet edition, which runs on JDBC,
+ * so its calls are subscribed on the bounded elastic scheduler too.
+ */
+@RequiredArgsConstructor
+@Profile("reactive")
+@Service
+public class ReactiveAuthenticationServiceImpl implements ReactiveAuthenticationService {
+
+    private static final String BEARER_PREFIX = "Bearer";
+
+    private final ReactiveUserRepository userRepository;
+
+    private final PasswordEncoder passwordEncoder;
+    private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
+    private final Scheduler passwordHashingScheduler;
+
+    private final ReactiveAuthenticationManager authenticationManager;
+
+    @Override
+    public Mono<AuthenticationResponse> register(RegisterRequest request) {
+        return Mono.fromCallable(() -> passwordEncoder.encode(request.getPassword()))
+                .subscribeOn(passwordHashingScheduler)
+                .map(encodedPassword -> UserRow.builder()
+                        .firstName(request.getFirstName())
+                        .lastName(request.getLastName())
+                        .username(request.getUsername())
+                        .password(encodedPassword)
+                        .role(Role.USER)
+                        .createdAt(LocalDateTime.now()).build())
+                .flatMap(userRepository::save)
+                .flatMap(user -> startSession(user.toUser()));
+    }
+
+    @Override
+    public Mono<AuthenticationResponse> authenticate(AuthenticationRequest request) {
+        return authenticationManager.authenticate(
+                        UsernamePasswordAuthenticationToken.unauthenticated(
+                                request.getUsername(), request.getPassword()))
+                .flatMap(authentication -> startSession((User) authentication.getPrincipal()));
+    }
+
+    /**
+     * Rotates the refresh token like the servlet edition: the response carries a new one and the presented token
+     * is spent, and presenting a spent token again revokes its family. Every rejection is an
+     * InvalidRefreshTokenException, answered with 401.
+     */
+    @Override
+    public Mono<AuthenticationResponse> refreshToken(String authHeader) {
+        if (Objects.isNull(authHeader) || !authHeader.startsWith(BEARER_PREFIX)) {
+            return Mono.error(new InvalidRefreshTokenException("Missing bearer refresh token"));
+        }
+
+        String refreshToken = authHeader.substring(BEARER_PREFIX.length());
+        return Mono.fromCallable(() -> jwtService.verifyToken(refreshToken))
+                .onErrorMap(e -> e instanceof JwtException || e instanceof IllegalArgumentException,
+                        e -> new InvalidRefreshTokenException(e.getMessage()))
+                .filter(VerifiedToken::isRefreshToken)
+                .flatMap(verifiedToken -> findUser(verifiedToken)
+                        .filter(user -> jwtService.isTokenValid(verifiedToken, user))
+                        .flatMap(user -> Mono.fromCallable(() -> AuthenticationResponse.builder()
+                                        .refreshToken(refreshTokenService.rotate(verifiedToken, user))
+                                        .accessToken(generateAccessToken(user, verifiedToken.getFamilyId())).build())
+                                .subscribeOn(Schedulers.boundedElastic())))
+                .switchIfEmpty(Mono.error(() -> new InvalidRefreshTokenException("Invalid refresh token")));
+    }
+
+    private Mono<User> findUser(VerifiedToken verifiedToken) {
+        return userRepository.findByUsername(verifiedToken.getSubject()).map(UserRow::toUser);
+    }
+
+    /**
+     * A login or registration starts a refresh token family; its access tokens carry the family id as sid.
+     */
+    private Mono<AuthenticationResponse> startSession(User user) {
+        String familyId = UUID.randomUUID().toString();
+        return Mono.fromCallable(() -> AuthenticationResponse.builder()
+                        .accessToken(generateAccessToken(user, familyId))
+                        .refreshToken(refreshTokenService.issue(user, familyId)).build())
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private String generateAccessToken(User user, String familyId) {
+        return jwtService.generateToken(user, Map.of(VerifiedToken.SESSION_ID_CLAIM, familyId));
+    }
+
+}
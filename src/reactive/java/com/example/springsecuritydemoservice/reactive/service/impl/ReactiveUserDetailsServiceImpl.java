@@ -0,0 +1,39 @@
+package com.example.springsecuritydemoservice.reactive.service.impl;
+
+import com.example.springsecuritydemoservice.reactive.model.UserRow;
+import com.example.springsecuritydemoservice.reactive.repository.ReactiveUserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of UserDetailsServiceImpl. As the password service it stores upgraded hashes
+ * with the same compare-and-set update, so a password changed meanwhile is never overwritten.
+ */
+@RequiredArgsConstructor
+@Profile("reactive")
+@Service
+public class ReactiveUserDetailsServiceImpl implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+
+    private final ReactiveUserRepository userRepository;
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return userRepository.findByUsername(username).map(UserRow::toUser);
+    }
+
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails user, String newPassword) {
+        return userRepository.updatePasswordIfUnchanged(user.getUsername(), user.getPassword(), newPassword)
+                .thenReturn(user);
+    }
+}
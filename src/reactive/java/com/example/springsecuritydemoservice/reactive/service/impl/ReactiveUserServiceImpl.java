@@ -0,0 +1,117 @@
+package com.example.springsecuritydemoservice.reactive.service.impl;
+
+import com.example.springsecuritydemoservice.dto.UserDto;
+import com.example.springsecuritydemoservice.dto.UserView;
+import com.example.springsecuritydemoservice.dto.auth.ChangePasswordRequest;
+
+import com.example.springsecuritydemoservice.exception.custom.UserNotFoundException;
+import com.example.springsecuritydemoservice.exception.custom.WrongPasswordException;
+
+import com.example.springsecuritydemoservice.model.User;
+
+import com.example.springsecuritydemoservice.reactive.model.UserRow;
+import com.example.springsecuritydemoservice.reactive.repository.ReactiveUserRepository;
+import com.example.springsecuritydemoservice.reactive.service.ReactiveUserService;
+
+import com.example.springsecuritydemoservice.service.RefreshTokenService;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.data.domain.PageRequest;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Objects;
+
+@RequiredArgsConstructor
+@Profile("reactive")
+@Service
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveUserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
+    private final Scheduler passwordHashingScheduler;
+
+    @Override
+    public Flux<UserView> getAllUsers(Long afterId, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (Objects.nonNull(afterId)) {
+            return userRepository.findByIdGreaterThanOrderById(afterId, PageRequest.of(0, pageSize))
+                    .map(UserRow::toView);
+        }
+        return userRepository.findAllByOrderById(PageRequest.of(Math.max(page, 0), pageSize))
+                .map(UserRow::toView);
+    }
+
+    /**
+     * Rows are emitted as the driver reads them, so memory stays flat however large the table is.
+     */
+    @Override
+    public Flux<UserView> streamAllUsers() {
+        return userRepository.findAllByOrderById().map(UserRow::toView);
+    }
+
+    @Override
+    public Mono<UserView> getUserById(Long id) {
+        return findUser(id).map(UserRow::toView);
+    }
+
+    @Override
+    public Mono<User> updateUser(Long id, UserDto userDto) {
+        return findUser(id)
+                .flatMap(existingUser -> {
+                    existingUser.setFirstName(userDto.getFirstName());
+                    existingUser.setLastName(userDto.getLastName());
+                    existingUser.setUsername(userDto.getUsername());
+                    return userRepository.save(existingUser);
+                })
+                .map(UserRow::toUser);
+    }
+
+    @Override
+    public Mono<Void> deleteUser(Long id) {
+        return findUser(id).flatMap(userRepository::delete);
+    }
+
+    /**
+     * Logs the user out everywhere once the new hash is stored, like the servlet edition. The refresh tokens
+     * are revoked through RefreshTokenService on JDBC, on the bounded elastic scheduler.
+     */
+    @Override
+    public Mono<Void> changePassword(Long id, ChangePasswordRequest request) {
+        return findUser(id)
+                .flatMap(user -> Mono.fromCallable(() -> {
+                            if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
+                                throw new WrongPasswordException("Wrong password");
+                            }
+
+                            if (!request.getNewPassword().equals(request.getConfirmationPassword())) {
+                                throw new WrongPasswordException("Password are not the same");
+                            }
+
+                            user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+                            return user;
+                        })
+                        .subscribeOn(passwordHashingScheduler))
+                .flatMap(userRepository::save)
+                .flatMap(user -> Mono.fromRunnable(() -> refreshTokenService.revokeAll(user.getId()))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .then();
+    }
+
+    private Mono<UserRow> findUser(Long id) {
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("User not found by id: " + id)));
+    }
+}
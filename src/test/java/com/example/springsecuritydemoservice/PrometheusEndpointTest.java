@@ -0,0 +1,73 @@
+package com.example.springsecuritydemoservice;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureObservability
+@AutoConfigureMockMvc
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+class PrometheusEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @DisplayName("Prometheus scrape is refused on the application port")
+    @Test
+    void prometheusScrapeIsForbiddenOnApplicationPort() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @DisplayName("Prometheus scrape on the management port exposes the security timers and pool metrics without authentication")
+    @Test
+    void prometheusScrapeExposesSecurityTimers() throws Exception {
+        mockMvc.perform(get("/api/v1/users"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/auth/authenticate")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"username\":\"nobody@mail.ru\",\"password\":\"123\"}"))
+                .andExpect(status().isUnauthorized());
+
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("jwt_filter_duration_seconds_count{outcome=\"no_header\"")
+                .contains("auth_service_duration_seconds_count{operation=\"authenticate\",outcome=\"failure\"")
+                .contains("password_hashing_duration_seconds_count{operation=\"matches\"")
+                .contains("spring_data_repository_invocations_seconds_count{exception=\"None\",method=\"findByUsername\",repository=\"UserRepository\"")
+                .contains("hikaricp_connections_acquire_seconds_count{pool=\"spring-security-demo-pool\"")
+                .contains("hikaricp_connections_active{pool=\"spring-security-demo-pool\"")
+                .contains("hikaricp_connections_pending{pool=\"spring-security-demo-pool\"");
+    }
+
+}
@@ -0,0 +1,298 @@
+package com.example.springsecuritydemoservice.config;
+
+import com.example.springsecuritydemoservice.metrics.JwtFilterMetrics;
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.security.JwtKeyProvider;
+import com.example.springsecuritydemoservice.security.PrincipalSource;
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.security.VerifiedTokenCache;
+import com.example.springsecuritydemoservice.service.impl.JwtServiceImpl;
+import com.example.springsecuritydemoservice.service.impl.UserDetailsServiceImpl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import java.util.Optional;
+
+import static com.example.springsecuritydemoservice.util.TestUtil.JWT_SECRET;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final User user = User.builder()
+            .id(1L)
+            .firstName("foo")
+            .lastName("bar")
+            .username("foobar@mail.ru")
+            .password("123")
+            .role(Role.USER).build();
+
+    private JwtServiceImpl jwtService;
+    private UserDetailsService userDetailsService;
+    private JwtAuthenticationFilter filter;
+    private MeterRegistry meterRegistry;
+    private JwtFilterMetrics jwtFilterMetrics;
+    private RevokedTokenIndex accessTokenDenylist;
+
+    @BeforeEach
+    void setUp() {
+        JwtServiceImpl target = new JwtServiceImpl(new JwtKeyProvider(JWT_SECRET));
+        ReflectionTestUtils.setField(target, "tokenExpiration", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(target, "refreshTokenExpiration", Duration.ofMinutes(30));
+        jwtService = spy(target);
+        userDetailsService = mock(UserDetailsService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        jwtFilterMetrics = new JwtFilterMetrics(meterRegistry);
+        accessTokenDenylist = new RevokedTokenIndex(100, 0.01);
+        filter = new JwtAuthenticationFilter(jwtService,
+                new VerifiedTokenCache(false, 0, Duration.ZERO, Clock.systemUTC(), meterRegistry),
+                accessTokenDenylist, userDetailsService,
+                Jackson2ObjectMapperBuilder.json().build(), jwtFilterMetrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @DisplayName("Valid token is parsed exactly once per request")
+    @Test
+    void validTokenIsParsedOnce() throws Exception {
+        String token = jwtService.generateToken(user);
+        when(userDetailsService.loadUserByUsername(eq(user.getUsername()))).thenReturn(user);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + token);
+        MockFilterChain filterChain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo(user.getUsername());
+        assertThat(filterChain.getRequest()).isNotNull();
+        verify(jwtService, times(1)).verifyToken(anyString());
+        verify(jwtService, never()).extractUsername(anyString());
+        verify(jwtService, never()).extractClaim(anyString(), any());
+        verify(jwtService, never()).isTokenValid(anyString(), any());
+        assertThat(outcomeCount("valid")).isEqualTo(1);
+    }
+
+    @DisplayName("Replayed token skips verification when cache is enabled")
+    @Test
+    void replayedTokenIsServedFromCache() throws Exception {
+        filter = new JwtAuthenticationFilter(jwtService,
+                new VerifiedTokenCache(true, 100, Duration.ofMinutes(5), Clock.systemUTC(), meterRegistry),
+                accessTokenDenylist, userDetailsService,
+                Jackson2ObjectMapperBuilder.json().build(), jwtFilterMetrics);
+        String token = jwtService.generateToken(user);
+        when(userDetailsService.loadUserByUsername(eq(user.getUsername()))).thenReturn(user);
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + token);
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo(user.getUsername());
+            SecurityContextHolder.clearContext();
+        }
+
+        verify(jwtService, times(1)).verifyToken(anyString());
+    }
+
+    @DisplayName("Claims principal source authenticates without repository calls")
+    @Test
+    void claimsPrincipalSourceDoesNotHitRepository() throws Exception {
+        UserRepository userRepository = mock(UserRepository.class);
+        filter = new JwtAuthenticationFilter(jwtService,
+                new VerifiedTokenCache(false, 0, Duration.ZERO, Clock.systemUTC(), meterRegistry), accessTokenDenylist,
+                new UserDetailsServiceImpl(userRepository, new NullUserCache()),
+                Jackson2ObjectMapperBuilder.json().build(), jwtFilterMetrics);
+        ReflectionTestUtils.setField(filter, "principalSource", PrincipalSource.CLAIMS);
+        ReflectionTestUtils.setField(jwtService, "principalSource", PrincipalSource.CLAIMS);
+        String token = jwtService.generateToken(user);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + token);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        User principal = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertThat(principal.getId()).isEqualTo(user.getId());
+        assertThat(principal.getUsername()).isEqualTo(user.getUsername());
+        assertThat(principal.getRole()).isEqualTo(user.getRole());
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getAuthorities())
+                .extracting("authority").containsExactly("ROLE_USER");
+        verifyNoInteractions(userRepository);
+    }
+
+    @DisplayName("Claims principal source falls back to database for tokens without principal claims")
+    @Test
+    void claimsPrincipalSourceFallsBackToDatabase() throws Exception {
+        UserRepository userRepository = mock(UserRepository.class);
+        filter = new JwtAuthenticationFilter(jwtService,
+                new VerifiedTokenCache(false, 0, Duration.ZERO, Clock.systemUTC(), meterRegistry), accessTokenDenylist,
+                new UserDetailsServiceImpl(userRepository, new NullUserCache()),
+                Jackson2ObjectMapperBuilder.json().build(), jwtFilterMetrics);
+        ReflectionTestUtils.setField(filter, "principalSource", PrincipalSource.CLAIMS);
+        String token = jwtService.generateToken(user);
+        when(userRepository.findByUsername(eq(user.getUsername()))).thenReturn(Optional.of(user));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + token);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo(user.getUsername());
+        verify(userRepository, times(1)).findByUsername(eq(user.getUsername()));
+    }
+
+    @DisplayName("Revoked token is not authenticated")
+    @Test
+    void revokedTokenIsNotAuthenticated() throws Exception {
+        String token = jwtService.generateToken(user);
+        VerifiedToken verifiedToken = jwtService.verifyToken(token);
+        accessTokenDenylist.revoke(verifiedToken.getTokenId(), verifiedToken.getExpiration());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + token);
+        MockFilterChain filterChain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(filterChain.getRequest()).isNotNull();
+        verifyNoInteractions(userDetailsService);
+        assertThat(outcomeCount("revoked")).isEqualTo(1);
+    }
+
+    @DisplayName("Refresh token is not accepted as a bearer token")
+    @Test
+    void refreshTokenIsNotAuthenticated() throws Exception {
+        String refreshToken = jwtService.generateRefreshToken(user, "token-1", "family-1");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + refreshToken);
+        MockFilterChain filterChain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(filterChain.getRequest()).isNotNull();
+        verifyNoInteractions(userDetailsService);
+        assertThat(outcomeCount("invalid")).isEqualTo(1);
+    }
+
+    @DisplayName("Refresh request is left to the refresh endpoint")
+    @Test
+    void refreshRequestIsNotFiltered() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/refresh-token");
+        request.setServletPath("/api/v1/auth/refresh-token");
+        request.addHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + "not-a-jwt");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+
+        filter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(filterChain.getRequest()).isNotNull();
+        verify(jwtService, never()).verifyToken(anyString());
+        assertThat(meterRegistry.find("jwt.filter.duration").timers()).allMatch(timer -> timer.count() == 0);
+    }
+
+    @DisplayName("Request without header is passed through")
+    @Test
+    void requestWithoutHeaderIsPassedThrough() throws Exception {
+        MockFilterChain filterChain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(filterChain.getRequest()).isNotNull();
+        verify(jwtService, never()).verifyToken(anyString());
+        assertThat(outcomeCount("no_header")).isEqualTo(1);
+    }
+
+    @DisplayName("Expired token is forbidden")
+    @Test
+    void expiredTokenIsForbidden() throws Exception {
+        ReflectionTestUtils.setField(jwtService, "tokenExpiration", Duration.ofMinutes(-1));
+        String token = jwtService.generateToken(user);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+
+        filter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(filterChain.getRequest()).isNull();
+        assertThat(outcomeCount("expired")).isEqualTo(1);
+    }
+
+    @DisplayName("Tampered token is recorded as invalid signature")
+    @Test
+    void tamperedTokenIsRecordedAsInvalidSignature() throws Exception {
+        String token = jwtService.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + tampered);
+        MockFilterChain filterChain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertThat(filterChain.getRequest()).isNull();
+        assertThat(outcomeCount("invalid_signature")).isEqualTo(1);
+        assertThat(outcomeCount("valid")).isZero();
+    }
+
+    @DisplayName("Unknown user is recorded as user not found")
+    @Test
+    void unknownUserIsRecordedAsUserNotFound() throws Exception {
+        String token = jwtService.generateToken(user);
+        when(userDetailsService.loadUserByUsername(eq(user.getUsername())))
+                .thenThrow(new UsernameNotFoundException("User not found by username: " + user.getUsername()));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, BEARER_PREFIX + token);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(outcomeCount("user_not_found")).isEqualTo(1);
+    }
+
+    private long outcomeCount(String outcome) {
+        return meterRegistry.get(JwtFilterMetrics.DURATION_METRIC).tag("outcome", outcome).timer().count();
+    }
+
+}
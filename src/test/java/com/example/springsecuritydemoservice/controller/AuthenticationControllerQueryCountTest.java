@@ -0,0 +1,89 @@
+package com.example.springsecuritydemoservice.controller;
+
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationRequest;
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.service.RefreshTokenService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static com.example.springsecuritydemoservice.controller.AuthenticationControllerTest.AUTH_CONTROLLER_PATH;
+import static com.example.springsecuritydemoservice.controller.AuthenticationControllerTest.BASE_URL;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts repository calls per login, with the real authentication manager and service behind the controller.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+class AuthenticationControllerQueryCountTest {
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @DisplayName("Authenticate user loads the user once")
+    @Test
+    void authenticateLoadsUserOnce() throws Exception {
+        User user = User.builder()
+                .id(1L)
+                .firstName("foo")
+                .lastName("bar")
+                .username("foobar@mail.ru")
+                .password(passwordEncoder.encode("123"))
+                .role(Role.USER).build();
+        when(userRepository.findByUsername(eq(user.getUsername()))).thenReturn(Optional.of(user));
+        when(refreshTokenService.issue(eq(user), anyString())).thenReturn("def456");
+        AuthenticationRequest authenticationRequest
+                = AuthenticationRequest.builder().username(user.getUsername()).password("123").build();
+
+        mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/authenticate")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authenticationRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").isNotEmpty())
+                .andExpect(jsonPath("$.refreshToken").isNotEmpty());
+
+        verify(userRepository, times(1)).findByUsername(eq(user.getUsername()));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+}
@@ -4,18 +4,13 @@ import com.example.springsecuritydemoservice.dto.auth.AuthenticationRequest;
 import com.example.springsecuritydemoservice.dto.auth.AuthenticationResponse;
 import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
 
+import com.example.springsecuritydemoservice.exception.custom.InvalidRefreshTokenException;
+import com.example.springsecuritydemoservice.exception.custom.PasswordHashingOverloadedException;
+
 import com.example.springsecuritydemoservice.service.impl.AuthenticationServiceImpl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import io.jsonwebtoken.ExpiredJwtException;
-
-import io.jsonwebtoken.impl.DefaultClaims;
-import io.jsonwebtoken.impl.DefaultHeader;
-
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -25,23 +20,25 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import org.springframework.http.HttpHeaders;
+
 import org.springframework.security.authentication.BadCredentialsException;
 
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.Map;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -126,42 +123,55 @@ class AuthenticationControllerTest {
         verify(authenticationService).authenticate(eq(authenticationRequest));
     }
 
+    @DisplayName("Authenticate user is 503 when hashing is saturated")
+    @Test
+    void authenticateUserIsUnavailableWhenHashingSaturated() throws Exception {
+        AuthenticationRequest authenticationRequest
+                = AuthenticationRequest.builder().username("foobar@mail.ru").password("123").build();
+        when(authenticationService.authenticate(eq(authenticationRequest)))
+                .thenThrow(new PasswordHashingOverloadedException("Too many concurrent authentication requests",
+                        Duration.ofSeconds(2)));
+
+        mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/authenticate")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authenticationRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(jsonPath("$.message").value("Too many concurrent authentication requests"));
+
+        verify(authenticationService).authenticate(eq(authenticationRequest));
+    }
+
     @DisplayName("Refresh token is OK")
     @Test
     void refreshTokenIsOk() throws Exception {
-        doNothing().when(authenticationService).refreshToken(
-                any(HttpServletRequest.class),
-                any(HttpServletResponse.class)
-        );
-
-        mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/refresh-token"))
-                .andExpect(status().isOk());
+        AuthenticationResponse expectedAuthenticationResponse
+                = AuthenticationResponse.builder()
+                .accessToken("abc123")
+                .refreshToken("ghi789").build();
+        when(authenticationService.refreshToken(eq("Bearer def456"))).thenReturn(expectedAuthenticationResponse);
 
-        verify(authenticationService).refreshToken(
-                any(HttpServletRequest.class),
-                any(HttpServletResponse.class));
+        mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/refresh-token")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer def456"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(APPLICATION_JSON))
+                .andExpect(jsonPath("$.accessToken").value(expectedAuthenticationResponse.getAccessToken()))
+                .andExpect(jsonPath("$.refreshToken").value(expectedAuthenticationResponse.getRefreshToken()));
 
+        verify(authenticationService).refreshToken(eq("Bearer def456"));
     }
 
     @DisplayName("Refresh token is fails")
     @Test
     void refreshTokenIsFails() throws Exception {
-        doThrow(new ExpiredJwtException(
-                new DefaultHeader(Map.of("Authorization", "Bearer 123")),
-                new DefaultClaims(Map.of()), "JWT expired")
-        ).when(authenticationService).refreshToken(
-                any(HttpServletRequest.class),
-                any(HttpServletResponse.class)
-        );
+        when(authenticationService.refreshToken(isNull()))
+                .thenThrow(new InvalidRefreshTokenException("Missing bearer refresh token"));
 
         mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/refresh-token"))
-                .andExpect(status().isForbidden())
-                .andExpect(result -> assertEquals("JWT expired", result.getResolvedException().getMessage()));
-
-        verify(authenticationService).refreshToken(
-                any(HttpServletRequest.class),
-                any(HttpServletResponse.class));
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Missing bearer refresh token"));
 
+        verify(authenticationService).refreshToken(isNull());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.example.springsecuritydemoservice.controller;
+
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.security.JwtKeyProvider;
+import com.example.springsecuritydemoservice.service.JwtService;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+import org.springframework.http.HttpHeaders;
+
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.example.springsecuritydemoservice.controller.JwksController.JWKS_PATH;
+import static com.example.springsecuritydemoservice.util.TestUtil.NON_ADMIN;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "jwt.algorithm=ES256")
+class JwksControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JwtKeyProvider jwtKeyProvider;
+
+    @DisplayName("JWK set is public and lists the key that signs tokens")
+    @Test
+    void getJwkSetIsOk() throws Exception {
+        String token = jwtService.generateToken(User.builder().username(NON_ADMIN.getUsername()).build());
+        String keyId = jwtKeyProvider.getParser().parseClaimsJws(token).getHeader().getKeyId();
+
+        mockMvc.perform(get(JWKS_PATH))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+                .andExpect(jsonPath("$.keys", hasSize(1)))
+                .andExpect(jsonPath("$.keys[*].kid", hasItem(keyId)))
+                .andExpect(jsonPath("$.keys[0].kty").value("EC"))
+                .andExpect(jsonPath("$.keys[0].crv").value("P-256"))
+                .andExpect(jsonPath("$.keys[0].alg").value("ES256"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.springsecuritydemoservice.controller;
+
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationRequest;
+import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.springsecuritydemoservice.controller.AuthenticationControllerTest.AUTH_CONTROLLER_PATH;
+import static com.example.springsecuritydemoservice.controller.AuthenticationControllerTest.BASE_URL;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A login must not keep a pooled connection while the password is checked, or a login storm drains the pool.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+class LoginConnectionTest {
+
+    private final String username = "connection-" + UUID.randomUUID() + "@mail.ru";
+
+    @SpyBean
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.findByUsername(username).ifPresent(userRepository::delete);
+    }
+
+    @DisplayName("Authenticate returns the connection of the user lookup before the password check")
+    @Test
+    void authenticateHoldsNoConnectionWhileHashing() throws Exception {
+        mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/register")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(RegisterRequest.builder()
+                                .firstName("foo")
+                                .lastName("bar")
+                                .username(username)
+                                .password("123").build())))
+                .andExpect(status().isOk());
+        List<Integer> activeConnections = new ArrayList<>();
+        doAnswer(invocation -> {
+            activeConnections.add(dataSource.getHikariPoolMXBean().getActiveConnections());
+            return invocation.callRealMethod();
+        }).when(passwordEncoder).matches(any(), anyString());
+
+        mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/authenticate")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(AuthenticationRequest.builder()
+                                .username(username)
+                                .password("123").build())))
+                .andExpect(status().isOk());
+
+        assertThat(activeConnections).containsExactly(0);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.springsecuritydemoservice.controller;
+
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationResponse;
+import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import org.springframework.http.HttpHeaders;
+
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static com.example.springsecuritydemoservice.controller.AuthenticationControllerTest.AUTH_CONTROLLER_PATH;
+import static com.example.springsecuritydemoservice.controller.AuthenticationControllerTest.BASE_URL;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Logout revokes the access token against the database and the denylist of JwtAuthenticationFilter,
+ * and the refresh token family of the session.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+class LogoutTest {
+
+    private final String username = "logout-" + UUID.randomUUID() + "@mail.ru";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.findByUsername(username).ifPresent(userRepository::delete);
+    }
+
+    @DisplayName("Access and refresh tokens are rejected after logout")
+    @Test
+    void sessionIsRejectedAfterLogout() throws Exception {
+        RegisterRequest registerRequest = RegisterRequest.builder()
+                .firstName("foo")
+                .lastName("bar")
+                .username(username)
+                .password("123").build();
+        String response = mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/register")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        AuthenticationResponse tokens = objectMapper.readValue(response, AuthenticationResponse.class);
+        String authorization = "Bearer " + tokens.getAccessToken();
+        String userPath = BASE_URL + "/users/" + userRepository.findByUsername(username).orElseThrow().getId();
+
+        mockMvc.perform(get(userPath).header(HttpHeaders.AUTHORIZATION, authorization))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/logout").header(HttpHeaders.AUTHORIZATION, authorization))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(userPath).header(HttpHeaders.AUTHORIZATION, authorization))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/refresh-token")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.getRefreshToken()))
+                .andExpect(status().isUnauthorized());
+    }
+}
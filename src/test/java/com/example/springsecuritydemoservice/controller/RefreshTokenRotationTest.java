@@ -0,0 +1,106 @@
+package com.example.springsecuritydemoservice.controller;
+
+import com.example.springsecuritydemoservice.dto.auth.AuthenticationResponse;
+import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import org.springframework.http.HttpHeaders;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.UUID;
+
+import static com.example.springsecuritydemoservice.controller.AuthenticationControllerTest.AUTH_CONTROLLER_PATH;
+import static com.example.springsecuritydemoservice.controller.AuthenticationControllerTest.BASE_URL;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Refresh token rotation and reuse detection against the database.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+class RefreshTokenRotationTest {
+
+    private final String username = "rotation-" + UUID.randomUUID() + "@mail.ru";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.findByUsername(username).ifPresent(userRepository::delete);
+    }
+
+    @DisplayName("Refresh returns a new refresh token and a reused one revokes the family")
+    @Test
+    void reusedRefreshTokenRevokesFamily() throws Exception {
+        AuthenticationResponse registered = read(register().andExpect(status().isOk()));
+
+        AuthenticationResponse refreshed = read(refresh(registered.getRefreshToken()).andExpect(status().isOk()));
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(registered.getRefreshToken());
+
+        refresh(registered.getRefreshToken()).andExpect(status().isUnauthorized());
+        refresh(refreshed.getRefreshToken()).andExpect(status().isUnauthorized());
+    }
+
+    @DisplayName("Refresh without a valid bearer token is 401")
+    @Test
+    void refreshWithoutValidTokenIsUnauthorized() throws Exception {
+        mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/refresh-token"))
+                .andExpect(status().isUnauthorized());
+        refresh("not-a-jwt").andExpect(status().isUnauthorized());
+    }
+
+    @DisplayName("Refresh token of a deleted user is 401")
+    @Test
+    void refreshOfDeletedUserIsUnauthorized() throws Exception {
+        AuthenticationResponse registered = read(register().andExpect(status().isOk()));
+        userRepository.findByUsername(username).ifPresent(userRepository::delete);
+
+        refresh(registered.getRefreshToken()).andExpect(status().isUnauthorized());
+    }
+
+    private ResultActions register() throws Exception {
+        RegisterRequest registerRequest = RegisterRequest.builder()
+                .firstName("foo")
+                .lastName("bar")
+                .username(username)
+                .password("123").build();
+        return mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/register")
+                .contentType(APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(registerRequest)));
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post(BASE_URL + AUTH_CONTROLLER_PATH + "/refresh-token")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken));
+    }
+
+    private AuthenticationResponse read(ResultActions result) throws Exception {
+        return objectMapper.readValue(result.andReturn().getResponse().getContentAsString(),
+                AuthenticationResponse.class);
+    }
+}
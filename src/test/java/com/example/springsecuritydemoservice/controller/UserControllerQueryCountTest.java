@@ -0,0 +1,150 @@
+package com.example.springsecuritydemoservice.controller;
+
+import com.example.springsecuritydemoservice.dto.UserDto;
+import com.example.springsecuritydemoservice.dto.UserView;
+import com.example.springsecuritydemoservice.dto.auth.ChangePasswordRequest;
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static com.example.springsecuritydemoservice.controller.AuthenticationControllerTest.BASE_URL;
+import static com.example.springsecuritydemoservice.controller.UserController.CHANGE_PASSWORD;
+import static com.example.springsecuritydemoservice.controller.UserController.ID;
+import static com.example.springsecuritydemoservice.controller.UserController.USER_CONTROLLER_PATH;
+import static com.example.springsecuritydemoservice.util.TestUtil.NON_ADMIN;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts repository calls per owner-guarded endpoint, with the real service behind the controller.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+class UserControllerQueryCountTest {
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = User.builder()
+                .id(NON_ADMIN.getId())
+                .firstName("foo")
+                .lastName("foo")
+                .username(NON_ADMIN.getUsername())
+                .password(passwordEncoder.encode("123"))
+                .role(Role.USER).build();
+        when(userRepository.findById(eq(owner.getId()))).thenReturn(Optional.of(owner));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @DisplayName("Get user by id selects the view once without loading the entity")
+    @Test
+    void getByIdSelectsViewOnce() throws Exception {
+        when(userRepository.findViewById(eq(owner.getId()))).thenReturn(Optional.of(UserView.builder()
+                .id(owner.getId())
+                .username(owner.getUsername())
+                .role(owner.getRole()).build()));
+
+        mockMvc.perform(get(BASE_URL + USER_CONTROLLER_PATH + ID, owner.getId())
+                        .with(user(NON_ADMIN)))
+                .andExpect(status().isOk());
+
+        verify(userRepository, times(1)).findViewById(eq(owner.getId()));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @DisplayName("Update user loads the user once")
+    @Test
+    void updateLoadsUserOnce() throws Exception {
+        UserDto fromDto = UserDto.builder()
+                .firstName("bar")
+                .lastName("bar")
+                .username(owner.getUsername()).build();
+
+        mockMvc.perform(put(BASE_URL + USER_CONTROLLER_PATH + ID, owner.getId())
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(fromDto))
+                        .with(user(NON_ADMIN)))
+                .andExpect(status().isOk());
+
+        verify(userRepository, times(1)).findById(eq(owner.getId()));
+        verify(userRepository, times(1)).save(any(User.class));
+    }
+
+    @DisplayName("Delete user loads the user once")
+    @Test
+    void deleteLoadsUserOnce() throws Exception {
+        mockMvc.perform(delete(BASE_URL + USER_CONTROLLER_PATH + ID, owner.getId())
+                        .with(user(NON_ADMIN)))
+                .andExpect(status().isOk());
+
+        verify(userRepository, times(1)).findById(eq(owner.getId()));
+        verify(userRepository, times(1)).delete(eq(owner));
+    }
+
+    @DisplayName("Change password loads the user once")
+    @Test
+    void changePasswordLoadsUserOnce() throws Exception {
+        ChangePasswordRequest changePasswordRequest = ChangePasswordRequest.builder()
+                .currentPassword("123")
+                .newPassword("12345")
+                .confirmationPassword("12345").build();
+        when(userRepository.updatePasswordIfUnchanged(eq(owner.getUsername()), eq(owner.getPassword()), anyString()))
+                .thenReturn(1);
+
+        mockMvc.perform(patch(BASE_URL + USER_CONTROLLER_PATH + CHANGE_PASSWORD, owner.getId())
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(changePasswordRequest))
+                        .with(user(NON_ADMIN)))
+                .andExpect(status().isOk());
+
+        verify(userRepository, times(1)).findById(eq(owner.getId()));
+        verify(userRepository, times(1)).updatePasswordIfUnchanged(eq(owner.getUsername()), anyString(), anyString());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+}
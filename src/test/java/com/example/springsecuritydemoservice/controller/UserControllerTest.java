@@ -1,10 +1,13 @@
 package com.example.springsecuritydemoservice.controller;
 
 import com.example.springsecuritydemoservice.dto.UserDto;
+import com.example.springsecuritydemoservice.dto.UserImportResult;
+import com.example.springsecuritydemoservice.dto.UserView;
 import com.example.springsecuritydemoservice.dto.auth.ChangePasswordRequest;
 import com.example.springsecuritydemoservice.model.Role;
 import com.example.springsecuritydemoservice.model.User;
 
+import com.example.springsecuritydemoservice.service.UserImportService;
 import com.example.springsecuritydemoservice.service.impl.UserServiceImpl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -19,34 +22,50 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static com.example.springsecuritydemoservice.controller.AuthenticationControllerTest.BASE_URL;
 import static com.example.springsecuritydemoservice.controller.UserController.CHANGE_PASSWORD;
+import static com.example.springsecuritydemoservice.controller.UserController.APPLICATION_NDJSON_VALUE;
 import static com.example.springsecuritydemoservice.controller.UserController.ID;
+import static com.example.springsecuritydemoservice.controller.UserController.IMPORT;
+import static com.example.springsecuritydemoservice.controller.UserController.STREAM;
+import static com.example.springsecuritydemoservice.controller.UserController.TEXT_CSV_VALUE;
 import static com.example.springsecuritydemoservice.controller.UserController.USER_CONTROLLER_PATH;
 import static com.example.springsecuritydemoservice.util.TestUtil.ADMIN;
 import static com.example.springsecuritydemoservice.util.TestUtil.NON_ADMIN;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import static org.hamcrest.Matchers.hasSize;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -56,6 +75,9 @@ class UserControllerTest {
     @MockBean
     private UserServiceImpl userService;
 
+    @MockBean
+    private UserImportService userImportService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -65,12 +87,11 @@ class UserControllerTest {
     @DisplayName("Get user by id is OK")
     @Test
     void getByUserIdIsOk() throws Exception {
-        User expectedUser = User.builder()
+        UserView expectedUser = UserView.builder()
                 .id(1L)
                 .firstName("foo")
                 .lastName("foo")
                 .username("foo@mail.ru")
-                .password("123")
                 .role(Role.USER).build();
         when(userService.getUserById(eq(expectedUser.getId()))).thenReturn(expectedUser);
 
@@ -79,56 +100,125 @@ class UserControllerTest {
                                 .with(user(ADMIN)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(expectedUser.getId()))
-                .andExpect(jsonPath("$.username").value(expectedUser.getUsername()));
+                .andExpect(jsonPath("$.username").value(expectedUser.getUsername()))
+                .andExpect(jsonPath("$.authorities").doesNotExist())
+                .andExpect(jsonPath("$.password").doesNotExist());
 
-        verify(userService, times(2)).getUserById(eq(expectedUser.getId()));
+        verify(userService, times(1)).getUserById(eq(expectedUser.getId()));
     }
 
     @DisplayName("Get user by id is fails")
     @Test
     void getUserByIdIsFails() throws Exception {
-        User expectedUser = User.builder()
+        UserView expectedUser = UserView.builder()
                 .id(1L)
                 .firstName("foo")
                 .lastName("foo")
                 .username("foo@mail.ru")
-                .password("123")
                 .role(Role.USER).build();
-        when(userService.getUserById(eq(expectedUser.getId()))).thenReturn(expectedUser);
-
         mockMvc.perform(
                         get(BASE_URL + USER_CONTROLLER_PATH + ID, expectedUser.getId())
                                 .with(user(NON_ADMIN)))
                 .andExpect(status().isForbidden());
 
-        verify(userService, times(1)).getUserById(eq(expectedUser.getId()));
+        verifyNoInteractions(userService);
+    }
+
+    @DisplayName("Get user by id is OK for owner")
+    @Test
+    void getUserByIdIsOkForOwner() throws Exception {
+        UserView ownerView = UserView.builder()
+                .id(NON_ADMIN.getId())
+                .username(NON_ADMIN.getUsername())
+                .role(NON_ADMIN.getRole()).build();
+        when(userService.getUserById(eq(NON_ADMIN.getId()))).thenReturn(ownerView);
+
+        mockMvc.perform(
+                        get(BASE_URL + USER_CONTROLLER_PATH + ID, NON_ADMIN.getId())
+                                .with(user(NON_ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(NON_ADMIN.getId()))
+                .andExpect(jsonPath("$.username").value(NON_ADMIN.getUsername()));
+
+        verify(userService, times(1)).getUserById(eq(NON_ADMIN.getId()));
+        verifyNoMoreInteractions(userService);
     }
 
     @DisplayName("Get all users is OK")
     @Test
     void getAllUsersIsOk() throws Exception {
-        User expectedUser1 = User.builder()
+        UserView expectedUser1 = UserView.builder()
                 .firstName("foo")
                 .lastName("foo")
                 .username("foo@mail.ru")
-                .password("123")
                 .role(Role.USER).build();
-        User expectedUser2 = User.builder()
+        UserView expectedUser2 = UserView.builder()
                 .firstName("bar")
                 .lastName("bar")
                 .username("bar@mail.ru")
-                .password("456")
                 .role(Role.ADMIN).build();
-        List<User> expectedUsers = List.of(expectedUser1, expectedUser2);
+        List<UserView> expectedUsers = List.of(expectedUser1, expectedUser2);
 
-        when(userService.getAllUsers()).thenReturn(expectedUsers);
+        when(userService.getAllUsers(isNull(), eq(0), eq(20))).thenReturn(expectedUsers);
 
         mockMvc.perform(
                         get(BASE_URL + USER_CONTROLLER_PATH).with(user(ADMIN)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.*", hasSize(2)));
 
-        verify(userService).getAllUsers();
+        verify(userService).getAllUsers(isNull(), eq(0), eq(20));
+    }
+
+    @DisplayName("Get all users passes paging parameters")
+    @Test
+    void getAllUsersPassesPagingParameters() throws Exception {
+        when(userService.getAllUsers(eq(42L), eq(0), eq(50))).thenReturn(List.of());
+
+        mockMvc.perform(
+                        get(BASE_URL + USER_CONTROLLER_PATH)
+                                .param("afterId", "42")
+                                .param("size", "50")
+                                .with(user(ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(0)));
+
+        verify(userService).getAllUsers(eq(42L), eq(0), eq(50));
+    }
+
+    @DisplayName("Stream all users writes NDJSON")
+    @Test
+    void streamAllUsersIsOk() throws Exception {
+        UserView expectedUser1 = UserView.builder()
+                .id(1L)
+                .firstName("foo")
+                .lastName("foo")
+                .username("foo@mail.ru")
+                .role(Role.USER).build();
+        UserView expectedUser2 = UserView.builder()
+                .id(2L)
+                .firstName("bar")
+                .lastName("bar")
+                .username("bar@mail.ru")
+                .role(Role.ADMIN).build();
+        doAnswer(invocation -> {
+            Consumer<UserView> consumer = invocation.getArgument(0);
+            consumer.accept(expectedUser1);
+            consumer.accept(expectedUser2);
+            return null;
+        }).when(userService).streamAllUsers(any());
+
+        MvcResult mvcResult = mockMvc.perform(
+                        get(BASE_URL + USER_CONTROLLER_PATH + STREAM).with(user(ADMIN)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("username").asText()).isEqualTo(expectedUser1.getUsername());
+        assertThat(objectMapper.readTree(lines[1]).get("username").asText()).isEqualTo(expectedUser2.getUsername());
     }
 
     @DisplayName("Get all users is fails")
@@ -137,10 +227,56 @@ class UserControllerTest {
         mockMvc.perform(
                         get(BASE_URL + USER_CONTROLLER_PATH).with(user(NON_ADMIN)))
                 .andExpect(status().isForbidden());
+        mockMvc.perform(
+                        get(BASE_URL + USER_CONTROLLER_PATH + STREAM).with(user(NON_ADMIN)))
+                .andExpect(status().isForbidden());
 
         verifyNoMoreInteractions(userService);
     }
 
+    @DisplayName("Import users is OK for admin")
+    @Test
+    void importUsersIsOk() throws Exception {
+        UserImportResult result = UserImportResult.builder()
+                .imported(1)
+                .failed(1)
+                .errors(List.of(new UserImportResult.RowError(2, "bar@mail.ru", "Username already exists"))).build();
+        when(userImportService.importUsers(any(InputStream.class), eq(UserImportService.Format.NDJSON)))
+                .thenReturn(result);
+        when(userImportService.importUsers(any(InputStream.class), eq(UserImportService.Format.CSV)))
+                .thenReturn(result);
+
+        mockMvc.perform(post(BASE_URL + USER_CONTROLLER_PATH + IMPORT)
+                        .contentType(APPLICATION_NDJSON_VALUE)
+                        .content("{\"username\":\"foo@mail.ru\"}\n")
+                        .with(user(ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("Username already exists"));
+        mockMvc.perform(post(BASE_URL + USER_CONTROLLER_PATH + IMPORT)
+                        .contentType(TEXT_CSV_VALUE)
+                        .content("firstName,lastName,username,password\n")
+                        .with(user(ADMIN)))
+                .andExpect(status().isOk());
+
+        verify(userImportService, times(1)).importUsers(any(InputStream.class), eq(UserImportService.Format.NDJSON));
+        verify(userImportService, times(1)).importUsers(any(InputStream.class), eq(UserImportService.Format.CSV));
+    }
+
+    @DisplayName("Import users is fails")
+    @Test
+    void importUsersIsFails() throws Exception {
+        mockMvc.perform(post(BASE_URL + USER_CONTROLLER_PATH + IMPORT)
+                        .contentType(APPLICATION_NDJSON_VALUE)
+                        .content("{\"username\":\"foo@mail.ru\"}\n")
+                        .with(user(NON_ADMIN)))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userImportService);
+    }
+
     @DisplayName("Update user is OK")
     @Test
     void updateUserIsOk() throws Exception {
@@ -155,7 +291,6 @@ class UserControllerTest {
                 .username("foo@mail.ru")
                 .password("123")
                 .role(Role.USER).build();
-        when(userService.getUserById(eq(expectedUser.getId()))).thenReturn(expectedUser);
         when(userService.updateUser(eq(expectedUser.getId()), eq(fromDto))).thenReturn(expectedUser);
 
         mockMvc.perform(put(BASE_URL + USER_CONTROLLER_PATH + ID, expectedUser.getId())
@@ -166,8 +301,8 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.id").value(expectedUser.getId()))
                 .andExpect(jsonPath("$.username").value(expectedUser.getUsername()));
 
-        verify(userService).getUserById(eq(expectedUser.getId()));
         verify(userService).updateUser(eq(expectedUser.getId()), eq(fromDto));
+        verifyNoMoreInteractions(userService);
     }
 
     @DisplayName("Update user is fails")
@@ -184,16 +319,13 @@ class UserControllerTest {
                 .username("foo@mail.ru")
                 .password("123")
                 .role(Role.USER).build();
-        when(userService.getUserById(eq(expectedUser.getId()))).thenReturn(expectedUser);
-
         mockMvc.perform(put(BASE_URL + USER_CONTROLLER_PATH + ID, expectedUser.getId())
                         .contentType(APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(fromDto))
                         .with(user(NON_ADMIN)))
                 .andExpect(status().isForbidden());
 
-        verify(userService).getUserById(eq(expectedUser.getId()));
-        verifyNoMoreInteractions(userService);
+        verifyNoInteractions(userService);
     }
 
     @DisplayName("Delete user is OK")
@@ -206,15 +338,14 @@ class UserControllerTest {
                 .username("foo@mail.ru")
                 .password("123")
                 .role(Role.USER).build();
-        when(userService.getUserById(eq(expectedUser.getId()))).thenReturn(expectedUser);
         doNothing().when(userService).deleteUser(eq(expectedUser.getId()));
 
         mockMvc.perform(delete(BASE_URL + USER_CONTROLLER_PATH + ID, expectedUser.getId())
                         .with(user(ADMIN)))
                 .andExpect(status().isOk());
 
-        verify(userService).getUserById(eq(expectedUser.getId()));
         verify(userService).deleteUser(eq(expectedUser.getId()));
+        verifyNoMoreInteractions(userService);
     }
 
     @DisplayName("Delete user is fails")
@@ -227,14 +358,11 @@ class UserControllerTest {
                 .username("foo@mail.ru")
                 .password("123")
                 .role(Role.USER).build();
-        when(userService.getUserById(eq(expectedUser.getId()))).thenReturn(expectedUser);
-
         mockMvc.perform(delete(BASE_URL + USER_CONTROLLER_PATH + ID, expectedUser.getId())
                         .with(user(NON_ADMIN)))
                 .andExpect(status().isForbidden());
 
-        verify(userService).getUserById(eq(expectedUser.getId()));
-        verifyNoMoreInteractions(userService);
+        verifyNoInteractions(userService);
     }
 
     @DisplayName("Change password is OK")
@@ -254,7 +382,6 @@ class UserControllerTest {
                         .newPassword("12345")
                         .confirmationPassword("12345").build();
 
-        when(userService.getUserById(eq(expectedUser.getId()))).thenReturn(expectedUser);
         doNothing().when(userService).changePassword(eq(expectedUser.getId()), eq(changePasswordRequest));
 
         mockMvc.perform(patch(BASE_URL + USER_CONTROLLER_PATH + CHANGE_PASSWORD, expectedUser.getId())
@@ -263,8 +390,8 @@ class UserControllerTest {
                 .with(user(ADMIN)))
                 .andExpect(status().isOk());
 
-        verify(userService).getUserById(eq(expectedUser.getId()));
         verify(userService).changePassword(eq(expectedUser.getId()), eq(changePasswordRequest));
+        verifyNoMoreInteractions(userService);
     }
 
     @DisplayName("Change password is fails")
@@ -284,16 +411,13 @@ class UserControllerTest {
                         .newPassword("12345")
                         .confirmationPassword("12345").build();
 
-        when(userService.getUserById(eq(expectedUser.getId()))).thenReturn(expectedUser);
-
         mockMvc.perform(patch(BASE_URL + USER_CONTROLLER_PATH + CHANGE_PASSWORD, expectedUser.getId())
                         .contentType(APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(changePasswordRequest))
                         .with(user(NON_ADMIN)))
                 .andExpect(status().isForbidden());
 
-        verify(userService).getUserById(eq(expectedUser.getId()));
-        verifyNoMoreInteractions(userService);
+        verifyNoInteractions(userService);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.example.springsecuritydemoservice.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SampledLoggerTurboFilterTest {
+
+    private static final String SQL_LOGGER = "org.hibernate.SQL";
+
+    private LoggerContext loggerContext;
+    private ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void setUp() {
+        loggerContext = new LoggerContext();
+        appender = new ListAppender<>();
+        appender.setContext(loggerContext);
+        appender.start();
+        Logger root = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.DEBUG);
+        root.addAppender(appender);
+    }
+
+    @DisplayName("Sample rate 0 disables the level check of the sampled logger only")
+    @Test
+    void zeroRateDisablesSampledLogger() {
+        addFilter(0.0);
+
+        assertThat(loggerContext.getLogger(SQL_LOGGER).isDebugEnabled()).isFalse();
+        assertThat(loggerContext.getLogger("org.hibernate.orm").isDebugEnabled()).isTrue();
+    }
+
+    @DisplayName("Sample rate 1 keeps every statement")
+    @Test
+    void fullRateKeepsEverything() {
+        addFilter(1.0);
+        Logger logger = loggerContext.getLogger(SQL_LOGGER);
+
+        for (int i = 0; i < 100; i++) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("select {}", i);
+            }
+        }
+
+        assertThat(appender.list).hasSize(100);
+    }
+
+    @DisplayName("Partial rate logs a share of guarded statements")
+    @Test
+    void partialRateLogsShare() {
+        addFilter(0.1);
+        Logger logger = loggerContext.getLogger(SQL_LOGGER);
+
+        for (int i = 0; i < 10_000; i++) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("select {}", i);
+            }
+        }
+
+        assertThat(appender.list).hasSizeBetween(700, 1300);
+    }
+
+    @DisplayName("Sampling does not override the logger level")
+    @Test
+    void levelStillApplies() {
+        addFilter(1.0);
+        Logger logger = loggerContext.getLogger(SQL_LOGGER);
+        logger.setLevel(Level.OFF);
+
+        assertThat(logger.isDebugEnabled()).isFalse();
+        logger.debug("select 1");
+        assertThat(appender.list).isEmpty();
+    }
+
+    private void addFilter(double sampleRate) {
+        SampledLoggerTurboFilter filter = new SampledLoggerTurboFilter();
+        filter.setContext(loggerContext);
+        filter.setLoggerName(SQL_LOGGER);
+        filter.setSampleRate(sampleRate);
+        filter.start();
+        loggerContext.addTurboFilter(filter);
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.example.springsecuritydemoservice.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.function.IntToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BCryptStrengthCalibratorTest {
+
+    // 50ms at the minimum strength, doubling with every step
+    private static final IntToLongFunction HASH_NANOS =
+            strength -> Duration.ofMillis(50).toNanos() << (strength - BCryptStrengthCalibrator.MIN_STRENGTH);
+
+    @DisplayName("Picks the highest strength within the target")
+    @Test
+    void picksHighestStrengthWithinTarget() {
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(HASH_NANOS);
+
+        assertThat(calibrator.calibrate(Duration.ofMillis(250))).isEqualTo(12);
+        assertThat(calibrator.calibrate(Duration.ofMillis(400))).isEqualTo(13);
+    }
+
+    @DisplayName("Never goes below the minimum strength")
+    @Test
+    void neverBelowMinimumStrength() {
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(HASH_NANOS);
+
+        assertThat(calibrator.calibrate(Duration.ofMillis(1))).isEqualTo(BCryptStrengthCalibrator.MIN_STRENGTH);
+    }
+}
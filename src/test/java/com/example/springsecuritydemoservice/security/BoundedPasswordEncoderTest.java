@@ -0,0 +1,127 @@
+package com.example.springsecuritydemoservice.security;
+
+import com.example.springsecuritydemoservice.exception.custom.PasswordHashingOverloadedException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private BoundedPasswordEncoder boundedPasswordEncoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        boundedPasswordEncoder.close();
+    }
+
+    @DisplayName("Encode and matches delegate on the pool and are timed")
+    @Test
+    @SuppressWarnings("deprecation")
+    void delegatesAndRecordsLatency() {
+        boundedPasswordEncoder = new BoundedPasswordEncoder(
+                NoOpPasswordEncoder.getInstance(), 2, 4, Duration.ofSeconds(1), meterRegistry);
+
+        assertThat(boundedPasswordEncoder.encode("123")).isEqualTo("123");
+        assertThat(boundedPasswordEncoder.matches("123", "123")).isTrue();
+        assertThat(boundedPasswordEncoder.matches("123", "456")).isFalse();
+
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.DURATION_METRIC)
+                .tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.DURATION_METRIC)
+                .tag("operation", "matches").timer().count()).isEqualTo(2);
+    }
+
+    @DisplayName("Full queue fails fast with retry after")
+    @Test
+    void fullQueueFailsFast() throws Exception {
+        boundedPasswordEncoder = new BoundedPasswordEncoder(
+                blockingEncoder(), 1, 1, Duration.ofSeconds(3), meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> boundedPasswordEncoder.encode("1"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> boundedPasswordEncoder.encode("2"));
+        waitForQueueSize(1);
+
+        assertThatThrownBy(() -> boundedPasswordEncoder.encode("3"))
+                .isInstanceOf(PasswordHashingOverloadedException.class)
+                .extracting("retryAfter").isEqualTo(Duration.ofSeconds(3));
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.REJECTED_METRIC).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.ACTIVE_METRIC).gauge().value()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("1");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("2");
+    }
+
+    @DisplayName("Delegate failures surface unchanged")
+    @Test
+    void delegateFailureSurfaces() {
+        PasswordEncoder failingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new IllegalArgumentException("rawPassword cannot be null");
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        boundedPasswordEncoder = new BoundedPasswordEncoder(
+                failingEncoder, 1, 1, Duration.ofSeconds(1), meterRegistry);
+
+        assertThatThrownBy(() -> boundedPasswordEncoder.encode(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("rawPassword cannot be null");
+    }
+
+    private PasswordEncoder blockingEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+
+    private void waitForQueueSize(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get(BoundedPasswordEncoder.QUEUE_METRIC).gauge().value() < expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get(BoundedPasswordEncoder.QUEUE_METRIC).gauge().value()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.springsecuritydemoservice.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonWebKeysTest {
+
+    // the example key of RFC 7638, section 3.1
+    private static final String RFC_7638_N = "0vx7agoebGcQSuuPiLJXZptN9nndrQmbXEps2aiAFbWhM78LhWx4cbbfAAtVT86zwu1RK7aPF"
+            + "FxuhDR1L6tSoc_BJECPebWKRXjBZCiFV4n3oknjhMstn64tZ_2W-5JsGY4Hc5n9yBXArwl93lqt7_RN5w6Cf0h4QyQ5v-65YGjQR0_FDW2"
+            + "QvzqY368QQMicAtaSqzs8KJZgnYb9c7d0zgdAZHzu6qMQvRL5hajrn1n91CbOpbISD08qNLyrdkt-bFTWhAI4vMQFh6WeZu0fM4lFd2NcR"
+            + "wr3XPksINHaQ-G_xBniIqbw0Ls1jF44-csFCur-kEgU8awapJzKnqDKgw";
+    private static final String RFC_7638_E = "AQAB";
+    private static final String RFC_7638_THUMBPRINT = "NzbLsXh8uDCcd-6MNwXF4W_7noWXFZAfHkxZsRGC9Xs";
+
+    @DisplayName("RSA thumbprint matches the RFC 7638 example")
+    @Test
+    void rsaThumbprintMatchesRfc() throws Exception {
+        PublicKey publicKey = KeyFactory.getInstance("RSA").generatePublic(
+                new RSAPublicKeySpec(unsigned(RFC_7638_N), unsigned(RFC_7638_E)));
+
+        assertThat(JsonWebKeys.thumbprint(publicKey)).isEqualTo(RFC_7638_THUMBPRINT);
+        assertThat(JsonWebKeys.toJwk(publicKey, SignatureAlgorithm.RS256, "kid-1"))
+                .containsEntry("kty", "RSA")
+                .containsEntry("alg", "RS256")
+                .containsEntry("kid", "kid-1")
+                .containsEntry("n", RFC_7638_N)
+                .containsEntry("e", RFC_7638_E);
+    }
+
+    @DisplayName("EC coordinates are 32 bytes for P-256")
+    @Test
+    void ecCoordinatesHaveFixedLength() {
+        PublicKey publicKey = Keys.keyPairFor(SignatureAlgorithm.ES256).getPublic();
+
+        Map<String, Object> jwk = JsonWebKeys.toJwk(publicKey, SignatureAlgorithm.ES256, "kid-1");
+
+        assertThat(jwk).containsEntry("kty", "EC").containsEntry("crv", "P-256").containsEntry("use", "sig");
+        assertThat(Base64.getUrlDecoder().decode((String) jwk.get("x"))).hasSize(32);
+        assertThat(Base64.getUrlDecoder().decode((String) jwk.get("y"))).hasSize(32);
+    }
+
+    private static BigInteger unsigned(String base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+    }
+}
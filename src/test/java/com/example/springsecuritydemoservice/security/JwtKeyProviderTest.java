@@ -0,0 +1,225 @@
+package com.example.springsecuritydemoservice.security;
+
+import com.example.springsecuritydemoservice.security.JwtKeyRingProperties.RingKey;
+import com.example.springsecuritydemoservice.security.JwtKeyRingProperties.Status;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.springsecuritydemoservice.util.TestUtil.JWT_SECRET;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtKeyProviderTest {
+
+    @DisplayName("Key and parser are built once and reused")
+    @Test
+    void keyAndParserAreReused() {
+        JwtKeyProvider jwtKeyProvider = new JwtKeyProvider(JWT_SECRET);
+
+        assertThat(jwtKeyProvider.getSigningKey()).isSameAs(jwtKeyProvider.getSigningKey());
+        assertThat(jwtKeyProvider.getParser()).isSameAs(jwtKeyProvider.getParser());
+    }
+
+    @DisplayName("HS256 publishes no keys")
+    @Test
+    void hmacPublishesNoKeys() {
+        JwtKeyProvider jwtKeyProvider = new JwtKeyProvider(JWT_SECRET);
+
+        assertThat(jwtKeyProvider.getJwkSet()).isEqualTo(Map.of("keys", List.of()));
+        assertThat(jwtKeyProvider.getParser().parseClaimsJws(jwtKeyProvider.sign(Jwts.builder().setSubject("foo")))
+                .getHeader().getKeyId()).isEqualTo(jwtKeyProvider.getKeyId());
+    }
+
+    @DisplayName("Token without kid issued before the key ring still verifies")
+    @Test
+    void tokenWithoutKeyIdVerifiesWithConfiguredKey() {
+        JwtKeyProvider jwtKeyProvider = new JwtKeyProvider(JWT_SECRET);
+        String token = Jwts.builder().setSubject("foo")
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(jwtKeyProvider.getParser().parseClaimsJws(token).getBody().getSubject()).isEqualTo("foo");
+    }
+
+    @DisplayName("Configured ring signs with the current key and verifies with the next and previous keys")
+    @Test
+    void configuredRingVerifiesNextAndPreviousKeys() {
+        String previousSecret = secret();
+        String nextSecret = secret();
+        JwtKeyProvider previous = ring(SignatureAlgorithm.HS256,
+                new RingKey("key-1", Status.CURRENT, previousSecret, null, null));
+        JwtKeyProvider next = ring(SignatureAlgorithm.HS256,
+                new RingKey("key-3", Status.CURRENT, nextSecret, null, null));
+        JwtKeyProvider jwtKeyProvider = ring(SignatureAlgorithm.HS256,
+                new RingKey("key-1", Status.PREVIOUS, previousSecret, null, null),
+                new RingKey("key-2", Status.CURRENT, secret(), null, null),
+                new RingKey("key-3", Status.NEXT, nextSecret, null, null));
+
+        String token = jwtKeyProvider.sign(Jwts.builder().setSubject("foo"));
+
+        assertThat(jwtKeyProvider.getParser().parseClaimsJws(token).getHeader().getKeyId()).isEqualTo("key-2");
+        assertThat(jwtKeyProvider.getParser().parseClaimsJws(previous.sign(Jwts.builder().setSubject("bar")))
+                .getBody().getSubject()).isEqualTo("bar");
+        assertThat(jwtKeyProvider.getParser().parseClaimsJws(next.sign(Jwts.builder().setSubject("baz")))
+                .getBody().getSubject()).isEqualTo("baz");
+        assertThat(keys(jwtKeyProvider)).isEmpty();
+        assertThatThrownBy(() -> previous.getParser().parseClaimsJws(token))
+                .isInstanceOf(SignatureException.class);
+    }
+
+    @DisplayName("Configured ring rejects tokens without a key id")
+    @Test
+    void configuredRingRejectsTokensWithoutKeyId() {
+        JwtKeyProvider jwtKeyProvider = ring(SignatureAlgorithm.HS256,
+                new RingKey("key-1", Status.CURRENT, JWT_SECRET, null, null));
+        String token = Jwts.builder()
+                .setSubject("foo")
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThatThrownBy(() -> jwtKeyProvider.getParser().parseClaimsJws(token))
+                .isInstanceOf(SignatureException.class);
+    }
+
+    @DisplayName("Configured ring publishes every public key and verifies with a public key only")
+    @Test
+    void configuredRingPublishesPublicKeys() {
+        KeyPair current = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        KeyPair previous = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        JwtKeyProvider jwtKeyProvider = ring(SignatureAlgorithm.ES256,
+                new RingKey("key-2", Status.CURRENT, null, encode(current.getPrivate().getEncoded()),
+                        encode(current.getPublic().getEncoded())),
+                new RingKey("key-1", Status.PREVIOUS, null, null, encode(previous.getPublic().getEncoded())));
+        String previousToken = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, "key-1")
+                .setSubject("foo")
+                .signWith(previous.getPrivate(), SignatureAlgorithm.ES256)
+                .compact();
+
+        assertThat(keyIds(jwtKeyProvider)).containsExactly("key-2", "key-1");
+        assertThat(jwtKeyProvider.getParser().parseClaimsJws(previousToken).getBody().getSubject()).isEqualTo("foo");
+    }
+
+    @DisplayName("Configured ring needs exactly one current key and unique key ids")
+    @Test
+    void invalidRingIsRejected() {
+        RingKey current = new RingKey("key-1", Status.CURRENT, JWT_SECRET, null, null);
+
+        assertThatThrownBy(() -> ring(SignatureAlgorithm.HS256,
+                new RingKey("key-1", Status.PREVIOUS, JWT_SECRET, null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no CURRENT");
+        assertThatThrownBy(() -> ring(SignatureAlgorithm.HS256, current,
+                new RingKey("key-2", Status.CURRENT, secret(), null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("more than one CURRENT");
+        assertThatThrownBy(() -> ring(SignatureAlgorithm.HS256, current,
+                new RingKey("key-1", Status.NEXT, secret(), null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("repeats the kid");
+        assertThatThrownBy(() -> ring(SignatureAlgorithm.ES256, new RingKey("key-1", Status.CURRENT, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("privateKey");
+    }
+
+    @DisplayName("ES256 token carries the key id and verifies with the published key")
+    @Test
+    void ecTokenVerifiesWithPublishedKey() throws Exception {
+        JwtKeyProvider jwtKeyProvider = new JwtKeyProvider(JWT_SECRET, SignatureAlgorithm.ES256, "", "", "");
+
+        String token = jwtKeyProvider.sign(Jwts.builder().setSubject("foo"));
+
+        Map<String, Object> jwk = key(jwtKeyProvider, jwtKeyProvider.getKeyId());
+        JwsHeader<?> header = Jwts.parserBuilder().setSigningKey(ecPublicKey(jwk)).build()
+                .parseClaimsJws(token).getHeader();
+        assertThat(header.getAlgorithm()).isEqualTo("ES256");
+        assertThat(header.getKeyId()).isEqualTo(jwk.get("kid"));
+        assertThat(jwtKeyProvider.getParser().parseClaimsJws(token).getBody().getSubject()).isEqualTo("foo");
+    }
+
+    @DisplayName("Configured key pair and key id are used")
+    @Test
+    void configuredKeyPairIsUsed() {
+        KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        JwtKeyProvider jwtKeyProvider = new JwtKeyProvider(JWT_SECRET, SignatureAlgorithm.ES256, "key-1",
+                Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()),
+                Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+
+        String token = jwtKeyProvider.sign(Jwts.builder().setSubject("foo"));
+
+        assertThat(keyIds(jwtKeyProvider)).contains("key-1");
+        assertThat(Jwts.parserBuilder().setSigningKey(keyPair.getPublic()).build()
+                .parseClaimsJws(token).getHeader().getKeyId()).isEqualTo("key-1");
+    }
+
+    @DisplayName("Private key without public key is rejected")
+    @Test
+    void privateKeyWithoutPublicKeyIsRejected() {
+        KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        String privateKey = Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded());
+
+        assertThatThrownBy(() -> new JwtKeyProvider(JWT_SECRET, SignatureAlgorithm.ES256, "", privateKey, ""))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static JwtKeyProvider ring(SignatureAlgorithm algorithm, RingKey... keys) {
+        return new JwtKeyProvider(JWT_SECRET, algorithm, "", "", "", new JwtKeyRingProperties(List.of(keys)));
+    }
+
+    private static String secret() {
+        return encode(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+    }
+
+    private static String encode(byte[] key) {
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> keys(JwtKeyProvider jwtKeyProvider) {
+        return (List<Map<String, Object>>) jwtKeyProvider.getJwkSet().get("keys");
+    }
+
+    private static List<Object> keyIds(JwtKeyProvider jwtKeyProvider) {
+        return keys(jwtKeyProvider).stream().map(jwk -> jwk.get("kid")).toList();
+    }
+
+    private static Map<String, Object> key(JwtKeyProvider jwtKeyProvider, String keyId) {
+        return keys(jwtKeyProvider).stream().filter(jwk -> keyId.equals(jwk.get("kid"))).findFirst().orElseThrow();
+    }
+
+    private static PublicKey ecPublicKey(Map<String, Object> jwk) throws Exception {
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        ECPoint point = new ECPoint(unsigned(jwk.get("x")), unsigned(jwk.get("y")));
+        return KeyFactory.getInstance("EC")
+                .generatePublic(new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+    }
+
+    private static BigInteger unsigned(Object base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode((String) base64Url));
+    }
+}
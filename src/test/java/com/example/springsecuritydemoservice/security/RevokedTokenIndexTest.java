@@ -0,0 +1,96 @@
+package com.example.springsecuritydemoservice.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevokedTokenIndexTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    @DisplayName("Revoked id is found and other ids are not")
+    @Test
+    void revokedIdIsFound() {
+        RevokedTokenIndex index = new RevokedTokenIndex(100, 0.01);
+
+        index.revoke("revoked", NOW.plusSeconds(60));
+
+        assertThat(index.isRevoked("revoked")).isTrue();
+        assertThat(index.isRevoked("other")).isFalse();
+        assertThat(index.isRevoked(null)).isFalse();
+    }
+
+    @DisplayName("Prune drops expired ids and keeps live ones")
+    @Test
+    void pruneDropsExpiredIds() {
+        RevokedTokenIndex index = new RevokedTokenIndex(100, 0.01);
+        index.revoke("expired", NOW.minusSeconds(1));
+        index.revoke("live", NOW.plusSeconds(60));
+
+        index.prune(NOW);
+
+        assertThat(index.isRevoked("expired")).isFalse();
+        assertThat(index.isRevoked("live")).isTrue();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @DisplayName("Revoke all adds to the content")
+    @Test
+    void revokeAllAddsToContent() {
+        RevokedTokenIndex index = new RevokedTokenIndex(100, 0.01);
+        index.revoke("kept", NOW.plusSeconds(60));
+
+        index.revokeAll(Map.of("kept", NOW.plusSeconds(60), "added", NOW.plusSeconds(60)));
+
+        assertThat(index.isRevoked("kept")).isTrue();
+        assertThat(index.isRevoked("added")).isTrue();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @DisplayName("Bloom filter keeps the false positive rate near the configured one")
+    @Test
+    void bloomFilterFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.add(UUID.randomUUID().toString()));
+
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain(UUID.randomUUID().toString()))
+                .count();
+
+        assertThat(filter.hashCount()).isEqualTo(7);
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @DisplayName("Bloom filter never misses an added id")
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        String[] ids = IntStream.range(0, 5_000).mapToObj(i -> UUID.randomUUID().toString()).toArray(String[]::new);
+
+        for (String id : ids) {
+            filter.add(id);
+        }
+
+        assertThat(ids).allMatch(filter::mightContain);
+    }
+
+    @DisplayName("Prune keeps every live id when more were revoked than expected")
+    @Test
+    void pruneKeepsIdsBeyondExpectedSize() {
+        RevokedTokenIndex index = new RevokedTokenIndex(10, 0.01);
+        IntStream.range(0, 1_000).forEach(i -> index.revoke("token-" + i, NOW.plus(Duration.ofMinutes(1))));
+
+        index.prune(NOW);
+
+        assertThat(index.size()).isEqualTo(1_000);
+        assertThat(IntStream.range(0, 1_000)).allMatch(i -> index.isRevoked("token-" + i));
+    }
+}
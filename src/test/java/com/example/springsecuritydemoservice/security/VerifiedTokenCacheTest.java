@@ -0,0 +1,187 @@
+package com.example.springsecuritydemoservice.security;
+
+import com.example.springsecuritydemoservice.util.MutableClock;
+
+import io.jsonwebtoken.ExpiredJwtException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VerifiedTokenCacheTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @DisplayName("Second lookup of the same token is served from the cache")
+    @Test
+    void secondLookupIsCacheHit() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofMinutes(5), clock, meterRegistry);
+        VerifiedToken verifiedToken = tokenExpiringIn(Duration.ofMinutes(10));
+
+        cache.getOrVerify(TOKEN, verifier(verifiedToken));
+        VerifiedToken actual = cache.getOrVerify(TOKEN, verifier(verifiedToken));
+
+        assertThat(actual).isSameAs(verifiedToken);
+        assertThat(verifications.get()).isEqualTo(1);
+        assertThat(cache.getStats().hitCount()).isEqualTo(1);
+        assertThat(cache.getStats().missCount()).isEqualTo(1);
+    }
+
+    @DisplayName("Hits and misses are published as cache meters")
+    @Test
+    void statsArePublishedAsMeters() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofMinutes(5), clock, meterRegistry);
+        VerifiedToken verifiedToken = tokenExpiringIn(Duration.ofMinutes(10));
+
+        cache.getOrVerify(TOKEN, verifier(verifiedToken));
+        cache.getOrVerify(TOKEN, verifier(verifiedToken));
+        cache.getOrVerify(TOKEN, verifier(verifiedToken));
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt.verified").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwt.verified").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "jwt.verified").gauge().value()).isEqualTo(1);
+    }
+
+    @DisplayName("Entry expires at the token exp claim when it is earlier than ttl")
+    @Test
+    void entryExpiresAtTokenExpiration() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofMinutes(5), clock, meterRegistry);
+        VerifiedToken verifiedToken = tokenExpiringIn(Duration.ofMinutes(1));
+
+        cache.getOrVerify(TOKEN, verifier(verifiedToken));
+        clock.advance(Duration.ofSeconds(61));
+
+        assertThatThrownBy(() -> cache.getOrVerify(TOKEN, verifier(verifiedToken)))
+                .isInstanceOf(ExpiredJwtException.class);
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @DisplayName("Entry expires after ttl when it is earlier than exp claim")
+    @Test
+    void entryExpiresAfterTtl() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofMinutes(5), clock, meterRegistry);
+        VerifiedToken verifiedToken = tokenExpiringIn(Duration.ofMinutes(10));
+
+        cache.getOrVerify(TOKEN, verifier(verifiedToken));
+        clock.advance(Duration.ofMinutes(6));
+        cache.getOrVerify(TOKEN, verifier(verifiedToken));
+
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @DisplayName("Cache is bounded by maximum size")
+    @Test
+    void cacheIsBounded() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, Duration.ofMinutes(5), clock, meterRegistry);
+        VerifiedToken verifiedToken = tokenExpiringIn(Duration.ofMinutes(10));
+
+        for (int i = 0; i < 100; i++) {
+            cache.getOrVerify(TOKEN + i, verifier(verifiedToken));
+        }
+        cache.cleanUp();
+
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+        assertThat(cache.getStats().evictionCount()).isGreaterThanOrEqualTo(90);
+    }
+
+    @DisplayName("Disabled cache verifies every time")
+    @Test
+    void disabledCacheVerifiesEveryTime() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 100, Duration.ofMinutes(5), clock, meterRegistry);
+        VerifiedToken verifiedToken = tokenExpiringIn(Duration.ofMinutes(10));
+
+        cache.getOrVerify(TOKEN, verifier(verifiedToken));
+        cache.getOrVerify(TOKEN, verifier(verifiedToken));
+
+        assertThat(verifications.get()).isEqualTo(2);
+        assertThat(cache.size()).isZero();
+        assertThat(meterRegistry.find("cache.gets").meters()).isEmpty();
+    }
+
+    @DisplayName("Expired token is never served from the cache under concurrent access")
+    @Test
+    void expiredTokenIsNeverServedConcurrently() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofMinutes(5), clock, meterRegistry);
+        VerifiedToken verifiedToken = tokenExpiringIn(Duration.ofSeconds(30));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger servedAfterExpiration = new AtomicInteger();
+        int threads = 8;
+        CountDownLatch started = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                started.countDown();
+                while (running.get()) {
+                    Instant before = clock.instant();
+                    try {
+                        VerifiedToken actual = cache.getOrVerify(TOKEN, verifier(verifiedToken));
+                        if (actual.isExpiredAt(before)) {
+                            servedAfterExpiration.incrementAndGet();
+                        }
+                    } catch (ExpiredJwtException ignored) {
+                        // expected once the clock has passed exp
+                    }
+                }
+            }));
+        }
+
+        started.await();
+        for (int i = 0; i < 60; i++) {
+            clock.advance(Duration.ofSeconds(1));
+            Thread.sleep(2);
+        }
+        running.set(false);
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(servedAfterExpiration.get()).isZero();
+    }
+
+    private VerifiedToken tokenExpiringIn(Duration duration) {
+        Instant now = clock.instant();
+        return new VerifiedToken("foobar@mail.ru", now, now.plus(duration), Map.of());
+    }
+
+    private Function<String, VerifiedToken> verifier(VerifiedToken verifiedToken) {
+        return token -> {
+            verifications.incrementAndGet();
+            if (verifiedToken.isExpiredAt(clock.instant())) {
+                throw new ExpiredJwtException(null, null, "JWT expired");
+            }
+            return verifiedToken;
+        };
+    }
+
+}
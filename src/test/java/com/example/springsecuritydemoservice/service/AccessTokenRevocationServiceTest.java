@@ -0,0 +1,98 @@
+package com.example.springsecuritydemoservice.service;
+
+import com.example.springsecuritydemoservice.model.RevokedAccessToken;
+import com.example.springsecuritydemoservice.repository.RevokedAccessTokenRepository;
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.service.impl.AccessTokenRevocationServiceImpl;
+import com.example.springsecuritydemoservice.util.MutableClock;
+
+import io.jsonwebtoken.Claims;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.Mock;
+
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AccessTokenRevocationServiceTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+
+    @Mock
+    private RevokedAccessTokenRepository revokedAccessTokenRepository;
+
+    private RevokedTokenIndex accessTokenDenylist;
+
+    private AccessTokenRevocationServiceImpl accessTokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        accessTokenDenylist = new RevokedTokenIndex(100, 0.01);
+        accessTokenRevocationService =
+                new AccessTokenRevocationServiceImpl(revokedAccessTokenRepository, accessTokenDenylist, clock);
+    }
+
+    @DisplayName("Revoke stores the jti and adds it to the denylist")
+    @Test
+    void revokeStoresTokenId() {
+        Instant expiresAt = clock.instant().plus(Duration.ofMinutes(10));
+
+        accessTokenRevocationService.revoke(accessToken("token-1", expiresAt));
+
+        verify(revokedAccessTokenRepository).insertIfAbsent(eq("token-1"), eq(expiresAt));
+        assertThat(accessTokenDenylist.isRevoked("token-1")).isTrue();
+    }
+
+    @DisplayName("Revoke skips tokens without jti and expired tokens")
+    @Test
+    void revokeSkipsUntrackedAndExpiredTokens() {
+        accessTokenRevocationService.revoke(new VerifiedToken("foobar@mail.ru", clock.instant(),
+                clock.instant().plusSeconds(60), Map.of()));
+        accessTokenRevocationService.revoke(accessToken("token-1", clock.instant().minusSeconds(1)));
+
+        verify(revokedAccessTokenRepository).findByExpiresAtAfter(eq(clock.instant()));
+        verifyNoMoreInteractions(revokedAccessTokenRepository);
+        assertThat(accessTokenDenylist.size()).isZero();
+    }
+
+    @DisplayName("Denylist is loaded at startup and drops tokens once they expire")
+    @Test
+    void denylistIsLoadedAndPruned() {
+        RevokedAccessToken revoked = RevokedAccessToken.builder()
+                .id("token-1")
+                .expiresAt(clock.instant().plus(Duration.ofMinutes(10))).build();
+        when(revokedAccessTokenRepository.findByExpiresAtAfter(eq(clock.instant()))).thenReturn(List.of(revoked));
+        RevokedTokenIndex denylist = new RevokedTokenIndex(100, 0.01);
+        new AccessTokenRevocationServiceImpl(revokedAccessTokenRepository, denylist, clock);
+
+        assertThat(denylist.isRevoked("token-1")).isTrue();
+
+        clock.advance(Duration.ofMinutes(10));
+        denylist.prune(clock.instant());
+
+        assertThat(denylist.isRevoked("token-1")).isFalse();
+    }
+
+    private VerifiedToken accessToken(String tokenId, Instant expiresAt) {
+        return new VerifiedToken("foobar@mail.ru", clock.instant().minusSeconds(60), expiresAt,
+                Map.of(Claims.ID, tokenId));
+    }
+}
@@ -3,13 +3,16 @@ package com.example.springsecuritydemoservice.service;
 import com.example.springsecuritydemoservice.dto.auth.AuthenticationRequest;
 import com.example.springsecuritydemoservice.dto.auth.AuthenticationResponse;
 import com.example.springsecuritydemoservice.dto.auth.RegisterRequest;
+import com.example.springsecuritydemoservice.exception.custom.InvalidRefreshTokenException;
+import com.example.springsecuritydemoservice.metrics.AuthenticationMetrics;
+import com.example.springsecuritydemoservice.metrics.AuthenticationMetrics.Operation;
 import com.example.springsecuritydemoservice.model.Role;
 import com.example.springsecuritydemoservice.model.User;
 import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
 import com.example.springsecuritydemoservice.service.impl.AuthenticationServiceImpl;
 
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
+import io.jsonwebtoken.MalformedJwtException;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -22,24 +25,27 @@ import org.mockito.Mock;
 
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import org.springframework.http.HttpHeaders;
-
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.io.IOException;
+import java.time.Instant;
 
+import java.util.Map;
 import java.util.Optional;
 
-import static com.example.springsecuritydemoservice.util.TestUtil.SERVLET_OUTPUT_STREAM;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -58,14 +64,17 @@ class AuthenticationServiceTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
     @Mock
     private AuthenticationManager authenticationManager;
 
     @Mock
-    private HttpServletRequest httpServletRequest;
+    private PasswordUpgradeService passwordUpgradeService;
 
     @Mock
-    private HttpServletResponse httpServletResponse;
+    private AuthenticationMetrics authenticationMetrics;
 
     @Captor
     private ArgumentCaptor<User> argumentUserCaptor;
@@ -101,8 +110,8 @@ class AuthenticationServiceTest {
                 .refreshToken("def456").build();
 
         when(userRepository.save(any(User.class))).thenReturn(expectedUser);
-        when(jwtService.generateToken(any(User.class))).thenReturn(expectedAuthenticationResponse.getAccessToken());
-        when(jwtService.generateRefreshToken(any(User.class))).thenReturn(expectedAuthenticationResponse.getRefreshToken());
+        when(jwtService.generateToken(any(User.class), anyMap())).thenReturn(expectedAuthenticationResponse.getAccessToken());
+        when(refreshTokenService.issue(any(User.class), anyString())).thenReturn(expectedAuthenticationResponse.getRefreshToken());
 
         AuthenticationResponse actualAuthenticationResponse = authenticationService.register(registerRequest);
 
@@ -136,9 +145,11 @@ class AuthenticationServiceTest {
                 .accessToken("abc123")
                 .refreshToken("def456").build();
 
-        when(userRepository.findByUsername(eq(authenticationRequest.getUsername()))).thenReturn(Optional.of(expectedUser));
-        when(jwtService.generateToken(any(User.class))).thenReturn(expectedAuthenticationResponse.getAccessToken());
-        when(jwtService.generateRefreshToken(any(User.class))).thenReturn(expectedAuthenticationResponse.getRefreshToken());
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(UsernamePasswordAuthenticationToken.authenticated(
+                        expectedUser, null, expectedUser.getAuthorities()));
+        when(jwtService.generateToken(any(User.class), anyMap())).thenReturn(expectedAuthenticationResponse.getAccessToken());
+        when(refreshTokenService.issue(any(User.class), anyString())).thenReturn(expectedAuthenticationResponse.getRefreshToken());
 
         AuthenticationResponse actualAuthenticationResponse = authenticationService.authenticate(authenticationRequest);
 
@@ -148,9 +159,11 @@ class AuthenticationServiceTest {
         assertThat(actualUsernamePasswordAuthenticationToken)
                 .usingRecursiveComparison()
                 .isEqualTo(expectedUsernamePasswordAuthenticationToken);
-        verify(userRepository).findByUsername(argumentUsernameCaptor.capture());
-        String actualUsername = argumentUsernameCaptor.getValue();
-        assertThat(actualUsername).isEqualTo(authenticationRequest.getUsername());
+        verify(jwtService).generateToken(eq(expectedUser), anyMap());
+        verify(refreshTokenService).issue(eq(expectedUser), anyString());
+        verify(passwordUpgradeService).upgradeIfNeeded(eq(expectedUser), eq(authenticationRequest.getPassword()));
+        verify(authenticationMetrics).record(eq(Operation.AUTHENTICATE), eq(true), anyLong());
+        verifyNoInteractions(userRepository);
         assertThat(actualAuthenticationResponse)
                 .usingRecursiveComparison()
                 .isEqualTo(expectedAuthenticationResponse);
@@ -163,25 +176,22 @@ class AuthenticationServiceTest {
                 .username("foobar@mail.ru")
                 .password("123")
                 .build();
-        User expectedUser = User.builder()
-                .firstName("foo")
-                .lastName("bar")
-                .username("foobar@mail.ru")
-                .password(passwordEncoder.encode("123"))
-                .role(Role.USER).build();
-
-        when(userRepository.findByUsername(eq(expectedUser.getUsername()))).thenReturn(Optional.empty());
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
 
         assertThatThrownBy(() -> authenticationService.authenticate(authenticationRequest))
-                .isInstanceOf(UsernameNotFoundException.class)
-                .hasMessage("User not found by username: " + authenticationRequest.getUsername());
-        verify(userRepository).findByUsername(eq(authenticationRequest.getUsername()));
-        verifyNoMoreInteractions(userRepository);
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Bad credentials");
+        verifyNoInteractions(userRepository);
+        verifyNoInteractions(jwtService);
+        verifyNoInteractions(refreshTokenService);
+        verifyNoInteractions(passwordUpgradeService);
+        verify(authenticationMetrics).record(eq(Operation.AUTHENTICATE), eq(false), anyLong());
     }
 
     @DisplayName("Refresh token is OK")
     @Test
-    void refreshTokenIsOk() throws IOException {
+    void refreshTokenIsOk() {
         User expectedUser = User.builder()
                 .firstName("foo")
                 .lastName("bar")
@@ -193,26 +203,97 @@ class AuthenticationServiceTest {
                 .accessToken("abc1234")
                 .refreshToken("def456").build();
 
-        when(httpServletRequest.getHeader(eq(HttpHeaders.AUTHORIZATION))).thenReturn(
-                BEARER_PREFIX + expectedAuthenticationResponse.getRefreshToken());
-        when(jwtService.extractUsername(eq(expectedAuthenticationResponse.getRefreshToken()))).thenReturn(
-                expectedUser.getUsername());
+        VerifiedToken verifiedToken = new VerifiedToken(expectedUser.getUsername(), Instant.now(),
+                Instant.now().plusSeconds(60), Map.of(VerifiedToken.FAMILY_ID_CLAIM, "family-1"));
+        when(jwtService.verifyToken(eq(expectedAuthenticationResponse.getRefreshToken()))).thenReturn(verifiedToken);
         when(userRepository.findByUsername(eq(expectedUser.getUsername()))).thenReturn(Optional.of(expectedUser));
-        when(jwtService.isTokenValid(eq(expectedAuthenticationResponse.getRefreshToken()), any(User.class))).thenReturn(true);
-        when(jwtService.generateToken(any(User.class))).thenReturn(expectedAuthenticationResponse.getAccessToken());
-        when(httpServletResponse.getOutputStream()).thenReturn(SERVLET_OUTPUT_STREAM);
+        when(jwtService.isTokenValid(eq(verifiedToken), any(User.class))).thenReturn(true);
+        when(refreshTokenService.rotate(eq(verifiedToken), eq(expectedUser))).thenReturn("ghi789");
+        when(jwtService.generateToken(any(User.class), anyMap())).thenReturn(expectedAuthenticationResponse.getAccessToken());
 
-        authenticationService.refreshToken(httpServletRequest, httpServletResponse);
+        AuthenticationResponse actualAuthenticationResponse = authenticationService.refreshToken(
+                BEARER_PREFIX + expectedAuthenticationResponse.getRefreshToken());
 
         verify(userRepository).findByUsername(argumentUsernameCaptor.capture());
         String actualUsername = argumentUsernameCaptor.getValue();
         assertThat(actualUsername).isEqualTo(expectedUser.getUsername());
-        verify(jwtService).generateToken(any(User.class));
+        verify(refreshTokenService).rotate(eq(verifiedToken), eq(expectedUser));
+        verify(jwtService).generateToken(any(User.class), eq(Map.of(VerifiedToken.SESSION_ID_CLAIM, "family-1")));
+        verify(authenticationMetrics).record(eq(Operation.REFRESH), eq(true), anyLong());
+        assertThat(actualAuthenticationResponse.getAccessToken()).isEqualTo(expectedAuthenticationResponse.getAccessToken());
+        assertThat(actualAuthenticationResponse.getRefreshToken()).isEqualTo("ghi789");
+    }
+
+    @DisplayName("Refresh token without a bearer token is rejected")
+    @Test
+    void refreshTokenWithoutBearerTokenIsRejected() {
+        assertThatThrownBy(() -> authenticationService.refreshToken(null))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        assertThatThrownBy(() -> authenticationService.refreshToken("Basic Zm9vOmJhcg=="))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        verifyNoInteractions(jwtService);
+        verifyNoInteractions(userRepository);
+        verifyNoInteractions(refreshTokenService);
+    }
+
+    @DisplayName("Refresh token with a malformed token is rejected")
+    @Test
+    void refreshTokenWithMalformedTokenIsRejected() {
+        when(jwtService.verifyToken(eq("def456"))).thenThrow(new MalformedJwtException("Malformed JWT"));
+
+        assertThatThrownBy(() -> authenticationService.refreshToken(BEARER_PREFIX + "def456"))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Malformed JWT");
+        verifyNoInteractions(userRepository);
+        verifyNoInteractions(refreshTokenService);
+        verify(authenticationMetrics).record(eq(Operation.REFRESH), eq(false), anyLong());
+    }
+
+    @DisplayName("Refresh token with a token of another user is rejected")
+    @Test
+    void refreshTokenWithInvalidTokenIsRejected() {
+        User expectedUser = User.builder()
+                .id(1L)
+                .username("foobar@mail.ru")
+                .role(Role.USER).build();
+
+        VerifiedToken verifiedToken = new VerifiedToken(
+                expectedUser.getUsername(), Instant.now(), Instant.now().plusSeconds(60), Map.of());
+        when(jwtService.verifyToken(eq("def456"))).thenReturn(verifiedToken);
+        when(userRepository.findByUsername(eq(expectedUser.getUsername()))).thenReturn(Optional.of(expectedUser));
+        when(jwtService.isTokenValid(eq(verifiedToken), any(User.class))).thenReturn(false);
+
+        assertThatThrownBy(() -> authenticationService.refreshToken(BEARER_PREFIX + "def456"))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        verifyNoInteractions(refreshTokenService);
+        verify(jwtService, never()).generateToken(any(User.class), anyMap());
+    }
+
+    @DisplayName("Refresh token with a used token is rejected")
+    @Test
+    void refreshTokenWithUsedTokenIsRejected() {
+        User expectedUser = User.builder()
+                .id(1L)
+                .username("foobar@mail.ru")
+                .role(Role.USER).build();
+
+        VerifiedToken verifiedToken = new VerifiedToken(
+                expectedUser.getUsername(), Instant.now(), Instant.now().plusSeconds(60), Map.of());
+        when(jwtService.verifyToken(eq("def456"))).thenReturn(verifiedToken);
+        when(userRepository.findByUsername(eq(expectedUser.getUsername()))).thenReturn(Optional.of(expectedUser));
+        when(jwtService.isTokenValid(eq(verifiedToken), any(User.class))).thenReturn(true);
+        when(refreshTokenService.rotate(eq(verifiedToken), eq(expectedUser)))
+                .thenThrow(new InvalidRefreshTokenException("Refresh token has already been used"));
+
+        assertThatThrownBy(() -> authenticationService.refreshToken(BEARER_PREFIX + "def456"))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        verify(jwtService, never()).generateToken(any(User.class), anyMap());
+        verify(authenticationMetrics).record(eq(Operation.REFRESH), eq(false), anyLong());
     }
 
     @DisplayName("Refresh token is fails")
     @Test
-    void refreshTokenIsFails() throws IOException {
+    void refreshTokenIsFails() {
         User expectedUser = User.builder()
                 .firstName("foo")
                 .lastName("bar")
@@ -224,15 +305,15 @@ class AuthenticationServiceTest {
                 .accessToken("abc1234")
                 .refreshToken("def456").build();
 
-        when(httpServletRequest.getHeader(eq(HttpHeaders.AUTHORIZATION))).thenReturn(
-                BEARER_PREFIX + expectedAuthenticationResponse.getRefreshToken());
-        when(jwtService.extractUsername(eq(expectedAuthenticationResponse.getRefreshToken()))).thenReturn(
-                expectedUser.getUsername());
+        VerifiedToken verifiedToken = new VerifiedToken(
+                expectedUser.getUsername(), Instant.now(), Instant.now().plusSeconds(60), Map.of());
+        when(jwtService.verifyToken(eq(expectedAuthenticationResponse.getRefreshToken()))).thenReturn(verifiedToken);
         when(userRepository.findByUsername(eq(expectedUser.getUsername()))).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> authenticationService.refreshToken(httpServletRequest, httpServletResponse))
-                .isInstanceOf(UsernameNotFoundException.class)
-                .hasMessage("User not found by username: " + expectedUser.getUsername());
+        assertThatThrownBy(() -> authenticationService.refreshToken(
+                BEARER_PREFIX + expectedAuthenticationResponse.getRefreshToken()))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Invalid refresh token");
         verify(userRepository).findByUsername(eq(expectedUser.getUsername()));
         verifyNoMoreInteractions(userRepository);
     }
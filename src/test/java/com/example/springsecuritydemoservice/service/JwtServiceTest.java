@@ -0,0 +1,102 @@
+package com.example.springsecuritydemoservice.service;
+
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.security.JwtKeyProvider;
+import com.example.springsecuritydemoservice.security.PrincipalSource;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.service.impl.JwtServiceImpl;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static com.example.springsecuritydemoservice.util.TestUtil.JWT_SECRET;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    private JwtServiceImpl jwtService;
+
+    private final User user = User.builder()
+            .id(1L)
+            .firstName("foo")
+            .lastName("bar")
+            .username("foobar@mail.ru")
+            .password("123")
+            .role(Role.USER).build();
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtServiceImpl(new JwtKeyProvider(JWT_SECRET));
+        ReflectionTestUtils.setField(jwtService, "tokenExpiration", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", Duration.ofMinutes(30));
+    }
+
+    @DisplayName("Verify token returns subject and timestamps")
+    @Test
+    void verifyTokenIsOk() {
+        String token = jwtService.generateToken(user);
+
+        VerifiedToken verifiedToken = jwtService.verifyToken(token);
+
+        assertThat(verifiedToken.getSubject()).isEqualTo(user.getUsername());
+        assertThat(verifiedToken.getIssuedAt()).isNotNull();
+        assertThat(verifiedToken.getExpiration()).isAfter(verifiedToken.getIssuedAt());
+        assertThat(verifiedToken.isExpired()).isFalse();
+        assertThat(jwtService.isTokenValid(verifiedToken, user)).isTrue();
+    }
+
+    @DisplayName("Claims principal source puts user id and role into the token")
+    @Test
+    void claimsPrincipalSourceAddsPrincipalClaims() {
+        ReflectionTestUtils.setField(jwtService, "principalSource", PrincipalSource.CLAIMS);
+        String token = jwtService.generateToken(user);
+
+        VerifiedToken verifiedToken = jwtService.verifyToken(token);
+
+        assertThat(verifiedToken.hasPrincipalClaims()).isTrue();
+        User principal = verifiedToken.toUser();
+        assertThat(principal.getId()).isEqualTo(user.getId());
+        assertThat(principal.getUsername()).isEqualTo(user.getUsername());
+        assertThat(principal.getRole()).isEqualTo(user.getRole());
+    }
+
+    @DisplayName("Database principal source keeps token free of principal claims")
+    @Test
+    void databasePrincipalSourceOmitsPrincipalClaims() {
+        String token = jwtService.generateToken(user);
+
+        assertThat(jwtService.verifyToken(token).hasPrincipalClaims()).isFalse();
+    }
+
+    @DisplayName("Verify token fails for expired token")
+    @Test
+    void verifyTokenIsFailsWhenExpired() {
+        ReflectionTestUtils.setField(jwtService, "tokenExpiration", Duration.ofMinutes(-1));
+        String token = jwtService.generateToken(user);
+
+        assertThatThrownBy(() -> jwtService.verifyToken(token))
+                .isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @DisplayName("Verify token fails for tampered token")
+    @Test
+    void verifyTokenIsFailsWhenTampered() {
+        String token = jwtService.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwtService.verifyToken(tampered))
+                .isInstanceOf(SignatureException.class);
+    }
+
+}
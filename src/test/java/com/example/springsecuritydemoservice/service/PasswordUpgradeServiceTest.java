@@ -0,0 +1,110 @@
+package com.example.springsecuritydemoservice.service;
+
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.service.impl.PasswordUpgradeServiceImpl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.Mock;
+
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordUpgradeServiceTest {
+
+    private static final String LEGACY_HASH = "$2a$10$legacy";
+    private static final String UPGRADED_HASH = "{bcrypt}$2a$12$upgraded";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserCache userCache;
+
+    private PasswordUpgradeService passwordUpgradeService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        passwordUpgradeService = new PasswordUpgradeServiceImpl(userRepository, passwordEncoder, userCache, Runnable::run);
+        user = User.builder()
+                .id(1L)
+                .username("foobar@mail.ru")
+                .password(LEGACY_HASH)
+                .role(Role.USER).build();
+    }
+
+    @DisplayName("Outdated hash is re-encoded and the cached user evicted")
+    @Test
+    void outdatedHashIsUpgraded() {
+        when(passwordEncoder.upgradeEncoding(eq(LEGACY_HASH))).thenReturn(true);
+        when(passwordEncoder.encode(eq("123"))).thenReturn(UPGRADED_HASH);
+        when(userRepository.updatePasswordIfUnchanged(eq(user.getUsername()), eq(LEGACY_HASH), eq(UPGRADED_HASH)))
+                .thenReturn(1);
+
+        passwordUpgradeService.upgradeIfNeeded(user, "123");
+
+        verify(userRepository).updatePasswordIfUnchanged(eq(user.getUsername()), eq(LEGACY_HASH), eq(UPGRADED_HASH));
+        verify(userCache).removeUserFromCache(eq(user.getUsername()));
+    }
+
+    @DisplayName("Current hash is left alone")
+    @Test
+    void currentHashIsNotUpgraded() {
+        when(passwordEncoder.upgradeEncoding(eq(LEGACY_HASH))).thenReturn(false);
+
+        passwordUpgradeService.upgradeIfNeeded(user, "123");
+
+        verify(passwordEncoder, never()).encode(any());
+        verifyNoInteractions(userRepository, userCache);
+    }
+
+    @DisplayName("Password changed meanwhile is not overwritten or evicted")
+    @Test
+    void concurrentChangeIsNotOverwritten() {
+        when(passwordEncoder.upgradeEncoding(eq(LEGACY_HASH))).thenReturn(true);
+        when(passwordEncoder.encode(eq("123"))).thenReturn(UPGRADED_HASH);
+        when(userRepository.updatePasswordIfUnchanged(eq(user.getUsername()), eq(LEGACY_HASH), eq(UPGRADED_HASH)))
+                .thenReturn(0);
+
+        passwordUpgradeService.upgradeIfNeeded(user, "123");
+
+        verifyNoInteractions(userCache);
+    }
+
+    @DisplayName("Full upgrade queue skips the upgrade")
+    @Test
+    void fullQueueSkipsUpgrade() {
+        passwordUpgradeService = new PasswordUpgradeServiceImpl(userRepository, passwordEncoder, userCache,
+                command -> {
+                    throw new RejectedExecutionException();
+                });
+        when(passwordEncoder.upgradeEncoding(eq(LEGACY_HASH))).thenReturn(true);
+
+        passwordUpgradeService.upgradeIfNeeded(user, "123");
+
+        verify(passwordEncoder, never()).encode(any());
+        verifyNoInteractions(userRepository, userCache);
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.springsecuritydemoservice.service;
+
+import com.example.springsecuritydemoservice.exception.custom.InvalidRefreshTokenException;
+import com.example.springsecuritydemoservice.model.RefreshToken;
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.repository.RefreshTokenRepository;
+import com.example.springsecuritydemoservice.security.RevokedTokenIndex;
+import com.example.springsecuritydemoservice.security.VerifiedToken;
+import com.example.springsecuritydemoservice.service.impl.RefreshTokenServiceImpl;
+import com.example.springsecuritydemoservice.util.MutableClock;
+
+import io.jsonwebtoken.Claims;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final Duration REFRESH_TOKEN_EXPIRATION = Duration.ofMinutes(30);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+
+    private final User user = User.builder()
+            .id(1L)
+            .username("foobar@mail.ru")
+            .role(Role.USER).build();
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Captor
+    private ArgumentCaptor<RefreshToken> refreshTokenCaptor;
+
+    private RevokedTokenIndex revokedTokenIndex;
+
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        revokedTokenIndex = new RevokedTokenIndex(100, 0.01);
+        refreshTokenService = new RefreshTokenServiceImpl(
+                refreshTokenRepository, jwtService, clock, REFRESH_TOKEN_EXPIRATION, revokedTokenIndex);
+    }
+
+    @DisplayName("Issue starts the family and stores the token")
+    @Test
+    void issueStartsFamily() {
+        when(jwtService.generateRefreshToken(eq(user), anyString(), anyString())).thenReturn("refresh");
+
+        String token = refreshTokenService.issue(user, "family-1");
+
+        assertThat(token).isEqualTo("refresh");
+        verify(refreshTokenRepository).save(refreshTokenCaptor.capture());
+        RefreshToken stored = refreshTokenCaptor.getValue();
+        assertThat(stored.getUserId()).isEqualTo(user.getId());
+        assertThat(stored.getFamilyId()).isEqualTo("family-1");
+        assertThat(stored.getExpiresAt()).isEqualTo(clock.instant().plus(REFRESH_TOKEN_EXPIRATION));
+        assertThat(stored.isNew()).isTrue();
+        verify(jwtService).generateRefreshToken(eq(user), eq(stored.getId()), eq(stored.getFamilyId()));
+    }
+
+    @DisplayName("Rotate spends the token and issues the next one of the same family")
+    @Test
+    void rotateIssuesNextTokenOfFamily() {
+        VerifiedToken refreshToken = refreshToken("token-1", "family-1");
+        when(refreshTokenRepository.markUsed(eq("token-1"), eq(user.getId()), eq(clock.instant()))).thenReturn(1);
+        when(jwtService.generateRefreshToken(eq(user), anyString(), eq("family-1"))).thenReturn("refresh-2");
+
+        String token = refreshTokenService.rotate(refreshToken, user);
+
+        assertThat(token).isEqualTo("refresh-2");
+        verify(refreshTokenRepository).save(refreshTokenCaptor.capture());
+        assertThat(refreshTokenCaptor.getValue().getFamilyId()).isEqualTo("family-1");
+        assertThat(revokedTokenIndex.isRevoked("token-1")).isTrue();
+        verify(refreshTokenRepository, never()).revokeFamily(anyString(), any(Instant.class));
+    }
+
+    @DisplayName("Rotate of a token in the revoked index revokes the family without marking it used")
+    @Test
+    void rotateOfIndexedTokenRevokesFamily() {
+        revokedTokenIndex.revoke("token-1", clock.instant().plus(REFRESH_TOKEN_EXPIRATION));
+        RefreshToken sibling = RefreshToken.builder()
+                .id("token-2")
+                .familyId("family-1")
+                .userId(user.getId())
+                .expiresAt(clock.instant().plus(REFRESH_TOKEN_EXPIRATION)).build();
+        when(refreshTokenRepository.findByFamilyId(eq("family-1"))).thenReturn(List.of(sibling));
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(refreshToken("token-1", "family-1"), user))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token has already been used");
+
+        verify(refreshTokenRepository).revokeFamily(eq("family-1"), eq(clock.instant()));
+        verify(refreshTokenRepository, never()).markUsed(anyString(), any(), any());
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+        assertThat(revokedTokenIndex.isRevoked("token-2")).isTrue();
+    }
+
+    @DisplayName("Rotate of a token already used in the database revokes the family")
+    @Test
+    void rotateOfUsedTokenRevokesFamily() {
+        when(refreshTokenRepository.markUsed(eq("token-1"), eq(user.getId()), eq(clock.instant()))).thenReturn(0);
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(refreshToken("token-1", "family-1"), user))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token has already been used or revoked");
+
+        verify(refreshTokenRepository).revokeFamily(eq("family-1"), eq(clock.instant()));
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+    }
+
+    @DisplayName("Rotate of a token without jti is rejected")
+    @Test
+    void rotateOfUntrackedTokenIsRejected() {
+        VerifiedToken accessToken = new VerifiedToken(user.getUsername(), clock.instant(),
+                clock.instant().plusSeconds(60), Map.of());
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(accessToken, user))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Not a refresh token");
+
+        verify(refreshTokenRepository, never()).markUsed(anyString(), any(), any());
+    }
+
+    @DisplayName("Revoke family revokes every live token of the session")
+    @Test
+    void revokeFamilyRevokesSessionTokens() {
+        RefreshToken live = RefreshToken.builder()
+                .id("token-1")
+                .familyId("family-1")
+                .userId(user.getId())
+                .expiresAt(clock.instant().plus(REFRESH_TOKEN_EXPIRATION)).build();
+        when(refreshTokenRepository.revokeFamily(eq("family-1"), eq(clock.instant()))).thenReturn(1);
+        when(refreshTokenRepository.findByFamilyId(eq("family-1"))).thenReturn(List.of(live));
+
+        refreshTokenService.revokeFamily("family-1");
+
+        assertThat(revokedTokenIndex.isRevoked("token-1")).isTrue();
+    }
+
+    @DisplayName("Revoke all revokes every live token of the user")
+    @Test
+    void revokeAllRevokesUserTokens() {
+        RefreshToken live = RefreshToken.builder()
+                .id("token-1")
+                .familyId("family-1")
+                .userId(user.getId())
+                .expiresAt(clock.instant().plus(REFRESH_TOKEN_EXPIRATION)).build();
+        when(refreshTokenRepository.revokeByUserId(eq(user.getId()), eq(clock.instant()))).thenReturn(1);
+        when(refreshTokenRepository.findByUserIdAndExpiresAtAfter(eq(user.getId()), eq(clock.instant())))
+                .thenReturn(List.of(live));
+
+        refreshTokenService.revokeAll(user.getId());
+
+        assertThat(revokedTokenIndex.isRevoked("token-1")).isTrue();
+    }
+
+    @DisplayName("Index is loaded with the used and revoked tokens at startup")
+    @Test
+    void indexIsLoadedAtStartup() {
+        RefreshToken used = RefreshToken.builder()
+                .id("token-1")
+                .familyId("family-1")
+                .userId(user.getId())
+                .expiresAt(clock.instant().plus(REFRESH_TOKEN_EXPIRATION))
+                .usedAt(clock.instant()).build();
+        when(refreshTokenRepository.findRejectedUntilExpiry(eq(clock.instant()))).thenReturn(List.of(used));
+        RevokedTokenIndex index = new RevokedTokenIndex(100, 0.01);
+
+        new RefreshTokenServiceImpl(refreshTokenRepository, jwtService, clock, REFRESH_TOKEN_EXPIRATION, index);
+
+        assertThat(index.isRevoked("token-1")).isTrue();
+    }
+
+    private VerifiedToken refreshToken(String tokenId, String familyId) {
+        return new VerifiedToken(user.getUsername(), clock.instant(), clock.instant().plus(REFRESH_TOKEN_EXPIRATION),
+                Map.of(Claims.ID, tokenId, VerifiedToken.FAMILY_ID_CLAIM, familyId));
+    }
+}
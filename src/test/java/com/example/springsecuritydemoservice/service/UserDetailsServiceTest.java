@@ -0,0 +1,98 @@
+package com.example.springsecuritydemoservice.service;
+
+import com.example.springsecuritydemoservice.model.Role;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.security.CaffeineUserCache;
+import com.example.springsecuritydemoservice.service.impl.UserDetailsServiceImpl;
+import com.example.springsecuritydemoservice.util.MutableClock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T10:00:00Z"));
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CaffeineUserCache userCache;
+    private UserDetailsServiceImpl userDetailsService;
+
+    private final User user = User.builder()
+            .id(1L)
+            .firstName("foo")
+            .lastName("bar")
+            .username("foobar@mail.ru")
+            .password("123")
+            .role(Role.USER).build();
+
+    @BeforeEach
+    void setUp() {
+        userCache = new CaffeineUserCache(100, Duration.ofMinutes(5), clock, meterRegistry);
+        userDetailsService = new UserDetailsServiceImpl(userRepository, userCache);
+    }
+
+    @DisplayName("Repeated loads hit the repository once per ttl window")
+    @Test
+    void repeatedLoadsAreCached() {
+        when(userRepository.findByUsername(eq(user.getUsername()))).thenReturn(Optional.of(user));
+
+        for (int i = 0; i < 5; i++) {
+            UserDetails actualUser = userDetailsService.loadUserByUsername(user.getUsername());
+            assertThat(actualUser).isSameAs(user);
+        }
+        clock.advance(Duration.ofMinutes(6));
+        userDetailsService.loadUserByUsername(user.getUsername());
+
+        verify(userRepository, times(2)).findByUsername(eq(user.getUsername()));
+        assertThat(userCache.getStats().hitCount()).isEqualTo(4);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(2);
+    }
+
+    @DisplayName("Evicted user is loaded from the repository again")
+    @Test
+    void evictedUserIsReloaded() {
+        when(userRepository.findByUsername(eq(user.getUsername()))).thenReturn(Optional.of(user), Optional.empty());
+
+        userDetailsService.loadUserByUsername(user.getUsername());
+        userCache.removeUserFromCache(user.getUsername());
+
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername(user.getUsername()))
+                .isInstanceOf(UsernameNotFoundException.class)
+                .hasMessage("User not found by username: " + user.getUsername());
+        verify(userRepository, times(2)).findByUsername(eq(user.getUsername()));
+    }
+
+}
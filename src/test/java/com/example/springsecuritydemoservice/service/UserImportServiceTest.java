@@ -0,0 +1,202 @@
+package com.example.springsecuritydemoservice.service;
+
+import com.example.springsecuritydemoservice.dto.UserImportResult;
+import com.example.springsecuritydemoservice.exception.custom.InvalidImportException;
+import com.example.springsecuritydemoservice.model.User;
+import com.example.springsecuritydemoservice.repository.UserRepository;
+import com.example.springsecuritydemoservice.security.BoundedPasswordEncoder;
+import com.example.springsecuritydemoservice.service.impl.UserImportServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.time.Duration;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class UserImportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private ValidatorFactory validatorFactory;
+
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        userImportService = new UserImportServiceImpl(userRepository, passwordEncoder,
+                Jackson2ObjectMapperBuilder.json().build(), validatorFactory.getValidator(), 2, Runnable::run);
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> "{bcrypt}" + invocation.getArgument(0));
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(Set.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @DisplayName("NDJSON rows are hashed and saved in batches")
+    @SuppressWarnings("unchecked")
+    @Test
+    void ndjsonRowsAreSavedInBatches() throws Exception {
+        UserImportResult result = userImportService.importUsers(input("""
+                {"firstName":"a","lastName":"a","username":"a@mail.ru","password":"123"}
+                {"firstName":"b","lastName":"b","username":"b@mail.ru","password":"456"}
+
+                {"firstName":"c","lastName":"c","username":"c@mail.ru","password":"789"}
+                """), UserImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getFailed()).isZero();
+        ArgumentCaptor<List<User>> batches = ArgumentCaptor.forClass(List.class);
+        verify(userRepository, times(2)).saveAll(batches.capture());
+        assertThat(batches.getAllValues()).extracting(List::size).containsExactly(2, 1);
+        assertThat(batches.getAllValues().get(0).get(1).getPassword()).isEqualTo("{bcrypt}456");
+    }
+
+    @DisplayName("Bad rows are reported by line without stopping the import")
+    @Test
+    void badRowsAreReportedByLine() throws Exception {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(Set.of("taken@mail.ru"));
+
+        UserImportResult result = userImportService.importUsers(input("""
+                {"firstName":"a","lastName":"a","username":"a@mail.ru","password":"123"}
+                {"firstName":
+                {"firstName":"b","lastName":"b","username":"b@mail.ru","password":"1"}
+                {"firstName":"a","lastName":"a","username":"a@mail.ru","password":"123"}
+                {"firstName":"t","lastName":"t","username":"taken@mail.ru","password":"123"}
+                """), UserImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getErrors()).extracting(UserImportResult.RowError::getLine).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(result.getErrors().get(0).getMessage()).startsWith("Malformed row");
+        assertThat(result.getErrors().get(1).getMessage()).isEqualTo("Password should be greater than 3");
+        assertThat(result.getErrors().get(2).getMessage()).isEqualTo("Duplicate username in import");
+        assertThat(result.getErrors().get(3).getMessage()).isEqualTo("Username already exists");
+    }
+
+    @DisplayName("CSV columns are matched by header")
+    @Test
+    void csvColumnsAreMatchedByHeader() throws Exception {
+        UserImportResult result = userImportService.importUsers(input("""
+                username,password,firstName,lastName
+                a@mail.ru,123,foo,bar
+                b@mail.ru,456,,bar
+                """), UserImportService.Format.CSV);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(3L);
+            assertThat(error.getUsername()).isEqualTo("b@mail.ru");
+            assertThat(error.getMessage()).isEqualTo("First name should not be empty");
+        });
+    }
+
+    @DisplayName("CSV without the required columns is rejected as a whole")
+    @Test
+    void csvWithoutRequiredColumnsIsRejected() {
+        assertThatThrownBy(() -> userImportService.importUsers(input("""
+                username,password
+                a@mail.ru,123
+                """), UserImportService.Format.CSV))
+                .isInstanceOf(InvalidImportException.class);
+
+        verify(userRepository, never()).saveAll(anyList());
+    }
+
+    @DisplayName("Failed batch is retried row by row")
+    @Test
+    void failedBatchIsRetriedRowByRow() throws Exception {
+        when(userRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            if (user.getUsername().equals("b@mail.ru")) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return user;
+        });
+
+        UserImportResult result = userImportService.importUsers(input("""
+                {"firstName":"a","lastName":"a","username":"a@mail.ru","password":"123"}
+                {"firstName":"b","lastName":"b","username":"b@mail.ru","password":"456"}
+                """), UserImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(2L);
+            assertThat(error.getMessage()).isEqualTo("duplicate key");
+        });
+    }
+
+    @DisplayName("Import does not hash through the bounded login hashing pool")
+    @Test
+    void importDoesNotUseLoginHashingPool() throws Exception {
+        BoundedPasswordEncoder loginEncoder = new BoundedPasswordEncoder(passwordEncoder, 1, 1,
+                Duration.ofSeconds(1), new SimpleMeterRegistry());
+        // a stopped pool rejects every task, like a full queue
+        loginEncoder.close();
+        UserImportServiceImpl importService = new UserImportServiceImpl(userRepository, loginEncoder,
+                Jackson2ObjectMapperBuilder.json().build(), validatorFactory.getValidator(), 2, 1);
+
+        try {
+            UserImportResult result = importService.importUsers(input("""
+                    {"firstName":"a","lastName":"a","username":"a@mail.ru","password":"123"}
+                    {"firstName":"b","lastName":"b","username":"b@mail.ru","password":"456"}
+                    """), UserImportService.Format.NDJSON);
+
+            assertThat(result.getImported()).isEqualTo(2);
+            assertThat(result.getFailed()).isZero();
+        } finally {
+            importService.destroy();
+        }
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -1,8 +1,10 @@
 package com.example.springsecuritydemoservice.service;
 
 import com.example.springsecuritydemoservice.dto.UserDto;
+import com.example.springsecuritydemoservice.dto.UserView;
 import com.example.springsecuritydemoservice.dto.auth.ChangePasswordRequest;
 import com.example.springsecuritydemoservice.exception.custom.UserNotFoundException;
+import com.example.springsecuritydemoservice.exception.custom.WrongPasswordException;
 
 import com.example.springsecuritydemoservice.model.Role;
 import com.example.springsecuritydemoservice.model.User;
@@ -19,12 +21,21 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static com.example.springsecuritydemoservice.util.TestUtil.IGNORING_USER_FIELDS;
 
@@ -37,6 +48,7 @@ import static org.mockito.ArgumentMatchers.eq;
 
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -52,81 +64,138 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @Captor
     private ArgumentCaptor<User> argumentUserCaptor;
 
     @DisplayName("Get all users return all")
     @Test
     void getAllUsersReturnAll() {
-        User expectedUser1 = User.builder()
+        UserView expectedUser1 = UserView.builder()
+                .id(1L)
                 .firstName("foo")
                 .lastName("foo")
                 .username("foo@mail.ru")
-                .password("123")
                 .role(Role.USER).build();
-        User expectedUser2 = User.builder()
+        UserView expectedUser2 = UserView.builder()
+                .id(2L)
                 .firstName("bar")
                 .lastName("bar")
                 .username("bar@mail.ru")
-                .password("456")
                 .role(Role.ADMIN).build();
-        List<User> expectedUsers = List.of(expectedUser1, expectedUser2);
-        when(userRepository.findAll()).thenReturn(expectedUsers);
+        List<UserView> expectedUsers = List.of(expectedUser1, expectedUser2);
+        when(userRepository.findViews(eq(PageRequest.of(0, 20)))).thenReturn(new SliceImpl<>(expectedUsers));
 
-        List<User> actualUsers = userService.getAllUsers();
+        List<UserView> actualUsers = userService.getAllUsers(null, 0, 20);
 
-        assertThat(actualUsers).usingRecursiveComparison()
-                .ignoringFields(IGNORING_USER_FIELDS).isEqualTo(expectedUsers);
-        verify(userRepository).findAll();
+        assertThat(actualUsers).isEqualTo(expectedUsers);
+        verify(userRepository).findViews(eq(PageRequest.of(0, 20)));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @DisplayName("Get all users after id uses keyset paging")
+    @Test
+    void getAllUsersAfterIdUsesKeyset() {
+        UserView expectedUser = UserView.builder()
+                .id(43L)
+                .firstName("foo")
+                .lastName("foo")
+                .username("foo@mail.ru")
+                .role(Role.USER).build();
+        when(userRepository.findViewsAfterId(eq(42L), eq(PageRequest.of(0, 1000))))
+                .thenReturn(List.of(expectedUser));
+
+        List<UserView> actualUsers = userService.getAllUsers(42L, 7, 5000);
+
+        assertThat(actualUsers).containsExactly(expectedUser);
+        verify(userRepository).findViewsAfterId(eq(42L), eq(PageRequest.of(0, 1000)));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @DisplayName("Stream all users passes every view to the consumer")
+    @Test
+    void streamAllUsersPassesViews() {
+        UserView expectedUser1 = UserView.builder().id(1L).username("foo@mail.ru").role(Role.USER).build();
+        UserView expectedUser2 = UserView.builder().id(2L).username("bar@mail.ru").role(Role.USER).build();
+        when(userRepository.findViewsAfterId(eq(0L), eq(PageRequest.of(0, 1000))))
+                .thenReturn(List.of(expectedUser1, expectedUser2));
+        List<UserView> consumedUsers = new ArrayList<>();
+
+        userService.streamAllUsers(consumedUsers::add);
+
+        assertThat(consumedUsers).containsExactly(expectedUser1, expectedUser2);
+        verify(userRepository).findViewsAfterId(eq(0L), eq(PageRequest.of(0, 1000)));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @DisplayName("Stream all users reads the next page after the last id of a full one")
+    @Test
+    void streamAllUsersReadsKeysetPages() {
+        List<UserView> firstPage = LongStream.rangeClosed(1, 1000)
+                .mapToObj(id -> UserView.builder().id(id).username(id + "@mail.ru").role(Role.USER).build())
+                .toList();
+        UserView lastUser = UserView.builder().id(1001L).username("1001@mail.ru").role(Role.USER).build();
+        when(userRepository.findViewsAfterId(eq(0L), eq(PageRequest.of(0, 1000)))).thenReturn(firstPage);
+        when(userRepository.findViewsAfterId(eq(1000L), eq(PageRequest.of(0, 1000)))).thenReturn(List.of(lastUser));
+        List<UserView> consumedUsers = new ArrayList<>();
+
+        userService.streamAllUsers(consumedUsers::add);
+
+        assertThat(consumedUsers).hasSize(1001).startsWith(firstPage.get(0)).endsWith(lastUser);
+        verify(userRepository).findViewsAfterId(eq(0L), eq(PageRequest.of(0, 1000)));
+        verify(userRepository).findViewsAfterId(eq(1000L), eq(PageRequest.of(0, 1000)));
+        verifyNoMoreInteractions(userRepository);
     }
 
     @DisplayName("Get all users return 0")
     @Test
     void getAllUsersReturn0() {
-        List<User> expectedUsers = List.of();
-        when(userRepository.findAll()).thenReturn(expectedUsers);
+        List<UserView> expectedUsers = List.of();
+        when(userRepository.findViews(eq(PageRequest.of(0, 20)))).thenReturn(new SliceImpl<>(expectedUsers));
 
-        List<User> actualUsers = userService.getAllUsers();
+        List<UserView> actualUsers = userService.getAllUsers(null, 0, 20);
 
-        assertThat(actualUsers).usingRecursiveComparison()
-                .ignoringFields(IGNORING_USER_FIELDS).isEqualTo(expectedUsers);
-        verify(userRepository).findAll();
+        assertThat(actualUsers).isEmpty();
+        verify(userRepository).findViews(eq(PageRequest.of(0, 20)));
     }
 
     @DisplayName("Get user by id is OK")
     @Test
     void getUserByIdIsOk() {
-        User expectedUser = User.builder()
+        UserView expectedUser = UserView.builder()
+                .id(1L)
                 .firstName("foo")
                 .lastName("foo")
                 .username("foo@mail.ru")
-                .password("123")
                 .role(Role.USER).build();
-        when(userRepository.findById(eq(expectedUser.getId()))).thenReturn(Optional.of(expectedUser));
+        when(userRepository.findViewById(eq(expectedUser.getId()))).thenReturn(Optional.of(expectedUser));
 
-        User actualUser = userService.getUserById(expectedUser.getId());
+        UserView actualUser = userService.getUserById(expectedUser.getId());
 
-        assertThat(actualUser).usingRecursiveComparison()
-                .ignoringFields(IGNORING_USER_FIELDS).isEqualTo(expectedUser);
-        verify(userRepository).findById(eq(expectedUser.getId()));
+        assertThat(actualUser).isEqualTo(expectedUser);
+        verify(userRepository).findViewById(eq(expectedUser.getId()));
+        verifyNoMoreInteractions(userRepository);
     }
 
     @DisplayName("Get user by id is fails")
     @Test
     void getUserByIdIsFails() {
-        User expectedUser = User.builder()
-                .firstName("foo")
-                .lastName("foo")
-                .username("foo@mail.ru")
-                .password("123")
-                .role(Role.USER).build();
-        when(userRepository.findById(eq(expectedUser.getId()))).thenReturn(Optional.empty());
+        Long id = 1L;
+        when(userRepository.findViewById(eq(id))).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> userService.getUserById(expectedUser.getId()))
+        assertThatThrownBy(() -> userService.getUserById(id))
                 .isInstanceOf(UserNotFoundException.class)
-                .hasMessage("User not found by id: " + expectedUser.getId());
+                .hasMessage("User not found by id: " + id);
 
-        verify(userRepository).findById(eq(expectedUser.getId()));
+        verify(userRepository).findViewById(eq(id));
     }
 
     @DisplayName("Update user is OK")
@@ -147,6 +216,7 @@ class UserServiceTest {
                 .username("bar@mail.ru").build();
         userService.updateUser(expectedUser.getId(), fromDto);
 
+        verify(userCache).removeUserFromCache(eq("foo@mail.ru"));
         verify(userRepository).findById(eq(expectedUser.getId()));
         verify(userRepository).save(argumentUserCaptor.capture());
         User actualUser = argumentUserCaptor.getValue();
@@ -191,6 +261,7 @@ class UserServiceTest {
 
         userService.deleteUser(expectedUser.getId());
 
+        verify(userCache).removeUserFromCache(eq(expectedUser.getUsername()));
         verify(userRepository).findById(eq(expectedUser.getId()));
         verify(userRepository).delete(argumentUserCaptor.capture());
         User actualUser = argumentUserCaptor.getValue();
@@ -234,15 +305,43 @@ class UserServiceTest {
 
         when(userRepository.findById(eq(expectedUser.getId()))).thenReturn(Optional.of(expectedUser));
         when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
-        when(userRepository.save(any(User.class))).thenReturn(expectedUser);
+        when(passwordEncoder.encode(eq("456"))).thenReturn("{bcrypt}456");
+        when(userRepository.updatePasswordIfUnchanged(anyString(), anyString(), anyString())).thenReturn(1);
 
         userService.changePassword(expectedUser.getId(), changePasswordRequest);
 
+        verify(userCache).removeUserFromCache(eq(expectedUser.getUsername()));
+        verify(refreshTokenService).revokeAll(eq(expectedUser.getId()));
         verify(userRepository).findById(eq(expectedUser.getId()));
-        verify(userRepository).save(argumentUserCaptor.capture());
-        User actualUser = argumentUserCaptor.getValue();
-        assertThat(actualUser).usingRecursiveComparison()
-                .ignoringFields(IGNORING_USER_FIELDS).isEqualTo(expectedUser);
+        verify(userRepository).updatePasswordIfUnchanged(eq(expectedUser.getUsername()), eq("123"), eq("{bcrypt}456"));
+        verify(transactionOperations).executeWithoutResult(any());
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @DisplayName("Change password fails when the password changed meanwhile")
+    @Test
+    void changePasswordFailsWhenChangedMeanwhile() {
+        User expectedUser = User.builder()
+                .firstName("foo")
+                .lastName("foo")
+                .username("foo@mail.ru")
+                .password("123")
+                .role(Role.USER).build();
+        ChangePasswordRequest changePasswordRequest =
+                ChangePasswordRequest.builder()
+                        .currentPassword(expectedUser.getPassword())
+                        .newPassword("456")
+                        .confirmationPassword("456").build();
+
+        when(userRepository.findById(eq(expectedUser.getId()))).thenReturn(Optional.of(expectedUser));
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        when(passwordEncoder.encode(eq("456"))).thenReturn("{bcrypt}456");
+        when(userRepository.updatePasswordIfUnchanged(anyString(), anyString(), anyString())).thenReturn(0);
+
+        assertThatThrownBy(() -> userService.changePassword(expectedUser.getId(), changePasswordRequest))
+                .isInstanceOf(WrongPasswordException.class)
+                .hasMessage("Password has been changed meanwhile");
+        verifyNoInteractions(refreshTokenService);
     }
 
     @DisplayName("Change password is fails")
@@ -0,0 +1,36 @@
+package com.example.springsecuritydemoservice.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class MutableClock extends Clock {
+    private final AtomicReference<Instant> instant;
+
+    public MutableClock(Instant instant) {
+        this.instant = new AtomicReference<>(instant);
+    }
+
+    public void advance(Duration duration) {
+        instant.updateAndGet(current -> current.plus(duration));
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+
+    @Override
+    public Instant instant() {
+        return instant.get();
+    }
+}
@@ -3,13 +3,9 @@ package com.example.springsecuritydemoservice.util;
 import com.example.springsecuritydemoservice.model.Role;
 import com.example.springsecuritydemoservice.model.User;
 
-import jakarta.servlet.ServletOutputStream;
-
-import jakarta.servlet.WriteListener;
-
-import java.io.IOException;
-
 public class TestUtil {
+    public final static String JWT_SECRET = "f10ddf41a6c7dd941a6474711f159343642d258a0e8aee74908a860ee38aab1f";
+
     public final static String[] IGNORING_USER_FIELDS =
             {"id", "createdAt", "enabled", "accountNonExpired",
                     "credentialsNonExpired", "authorities", "accountNonLocked"};
@@ -28,21 +24,4 @@ public class TestUtil {
             .username("nonAdmin@mail.ru")
             .password("nonAdmin")
             .role(Role.USER).build();
-
-    public final static ServletOutputStream SERVLET_OUTPUT_STREAM = new ServletOutputStream() {
-        @Override
-        public boolean isReady() {
-            return false;
-        }
-
-        @Override
-        public void setWriteListener(WriteListener writeListener) {
-
-        }
-
-        @Override
-        public void write(int b) throws IOException {
-
-        }
-    };
 }